@@ -0,0 +1,59 @@
+package com.jjginga.benchmark;
+
+import com.jjginga.LandProblem;
+import com.jjginga.instance.Instance;
+import com.jjginga.instance.InstanceGenerator;
+import com.jjginga.state.IState;
+import com.jjginga.state.LandMap;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Looks up the instances of LandProblem by a label made of their map size and colour count,
+ * such as "4x10-4c", which is what the benchmarks are parameterised by. Labels matching none of
+ * them, such as "200x200-8c", give a random instance of that size, always the same one.
+ */
+final class Instances {
+
+    //rows x columns - colours
+    private static final Pattern LABEL = Pattern.compile("(\\d+)x(\\d+)-(\\d+)c");
+
+    private Instances() {
+    }
+
+    /**
+     * Builds the label of an instance.
+     *
+     * @param state The initial state of the instance.
+     * @return The label, rows x columns - colours.
+     */
+    static String label(IState state) {
+        int[][] map = ((LandMap) state).cloneMap();
+        long colors = Arrays.stream(map).flatMapToInt(Arrays::stream).distinct().count();
+        return map.length + "x" + map[0].length + "-" + colors + "c";
+    }
+
+    /**
+     * Finds the instance with the given label.
+     *
+     * @param label The label of the instance.
+     * @return The initial state of the instance mapped to its objective.
+     */
+    static Map.Entry<IState, Integer> byLabel(String label) {
+        for(Map.Entry<IState, Integer> entry : LandProblem.instances().entrySet())
+            if(label(entry.getKey()).equals(label))
+                return entry;
+
+        Matcher matcher = LABEL.matcher(label);
+        if(matcher.matches()) {
+            Instance instance = new InstanceGenerator(label.hashCode()).generate(Integer.parseInt(matcher.group(1)),
+                    Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)), 0.5);
+            return new AbstractMap.SimpleImmutableEntry<>(instance.getState(), instance.getObjective());
+        }
+        throw new IllegalArgumentException("No instance labelled " + label);
+    }
+}
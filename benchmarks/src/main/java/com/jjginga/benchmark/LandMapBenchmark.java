@@ -0,0 +1,61 @@
+package com.jjginga.benchmark;
+
+import com.jjginga.state.IState;
+import com.jjginga.state.LandMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro benchmarks of the operations a search performs on every state: counting the borders,
+ * generating the successors, hashing and comparing states, and unpacking the map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LandMapBenchmark {
+
+    //every instance of the problem, by map size and colour count, and two large random maps
+    @Param({"3x3-3c", "2x4-2c", "4x4-3c", "4x5-2c", "4x10-4c", "8x10-2c", "8x10-8c", "50x50-8c", "200x200-8c"})
+    public String instance;
+
+    private LandMap state;
+    private LandMap equalState;//same configuration as state, built separately
+
+    @Setup
+    public void setUp() {
+        state = (LandMap) Instances.byLabel(instance).getKey();
+        equalState = new LandMap(state.cloneMap());
+    }
+
+    @Benchmark
+    public int evaluate() {
+        //evaluate() counts the borders of the whole map from scratch
+        state.evaluate();
+        return state.getObjectiveValue();
+    }
+
+    @Benchmark
+    public List<IState> generateSuccessors() {
+        return state.generateSuccessors();
+    }
+
+    @Benchmark
+    public int hashCodeOfState() {
+        return state.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsOfEqualStates() {
+        return state.equals(equalState);
+    }
+
+    @Benchmark
+    public int[][] cloneMap() {
+        return state.cloneMap();
+    }
+}
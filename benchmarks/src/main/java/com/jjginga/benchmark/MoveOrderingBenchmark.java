@@ -0,0 +1,65 @@
+package com.jjginga.benchmark;
+
+import com.jjginga.ordering.GridOrdering;
+import com.jjginga.ordering.HistoryOrdering;
+import com.jjginga.ordering.IMoveOrdering;
+import com.jjginga.ordering.RandomOrdering;
+import com.jjginga.ordering.ReductionOrdering;
+import com.jjginga.result.SearchResult;
+import com.jjginga.searchtechnique.DFS;
+import com.jjginga.state.IState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Time to the first solution of DFS under each move ordering, on the instances of the problem
+ * with their W1 objective and with the lower bound on the borders they can reach, where the
+ * first dive matters most. DFS returns at its first solution, so its time is the time to it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveOrderingBenchmark {
+
+    //instances by map size and colour count
+    @Param({"4x4-3c", "4x5-2c", "4x10-4c", "8x10-2c"})
+    public String instance;
+
+    @Param({"grid", "reduction", "history", "random"})
+    public String ordering;
+
+    //objective of the instance, or the lower bound on the borders it can reach
+    @Param({"objective", "lower-bound"})
+    public String target;
+
+    private IState initialState;
+    private int objective;
+    private Supplier<IMoveOrdering> orderingFactory;
+
+    @Setup
+    public void setUp() {
+        Map.Entry<IState, Integer> entry = Instances.byLabel(instance);
+        initialState = entry.getKey();
+        objective = target.equals("objective") ? entry.getValue() : initialState.getReachableLowerBound();
+        switch(ordering) {
+            case "grid": orderingFactory = GridOrdering::new; break;
+            case "reduction": orderingFactory = ReductionOrdering::new; break;
+            case "history": orderingFactory = HistoryOrdering::new; break;
+            case "random": orderingFactory = () -> new RandomOrdering(7); break;
+            default: throw new IllegalArgumentException("Unknown ordering " + ordering);
+        }
+    }
+
+    @Benchmark
+    public SearchResult firstSolution() {
+        DFS dfs = new DFS(initialState, objective);
+        dfs.setMoveOrdering(orderingFactory);
+        return dfs.call();
+    }
+}
@@ -0,0 +1,53 @@
+package com.jjginga.benchmark;
+
+import com.jjginga.result.SearchResult;
+import com.jjginga.searchtechnique.BFS;
+import com.jjginga.searchtechnique.DFS;
+import com.jjginga.searchtechnique.IterativeDDFS;
+import com.jjginga.state.IState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmarks of the uninformed techniques solving the instances of the problem with
+ * their W1 objective. Only the instances all of them solve within a second are included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    //instances by map size and colour count
+    @Param({"3x3-3c", "2x4-2c", "4x4-3c", "4x5-2c"})
+    public String instance;
+
+    private IState initialState;
+    private int objective;
+
+    @Setup
+    public void setUp() {
+        Map.Entry<IState, Integer> entry = Instances.byLabel(instance);
+        initialState = entry.getKey();
+        objective = entry.getValue();
+    }
+
+    @Benchmark
+    public SearchResult bfs() {
+        return new BFS(initialState, objective).call();
+    }
+
+    @Benchmark
+    public SearchResult dfs() {
+        return new DFS(initialState, objective).call();
+    }
+
+    @Benchmark
+    public SearchResult iterativeDeepening() {
+        return new IterativeDDFS(initialState, objective).call();
+    }
+}
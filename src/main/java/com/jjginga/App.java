@@ -1,14 +1,110 @@
 package com.jjginga;
 
+import com.jjginga.batch.BatchSolver;
+import com.jjginga.instance.Instance;
+import com.jjginga.instance.InstanceFile;
+import com.jjginga.instance.InstanceGenerator;
+import com.jjginga.state.IState;
+import com.jjginga.visited.TranspositionStore;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * The entry point of the application. Initializes and solves the land permutation problem
  * using predefined instances and displays the results.
+ * With the --portfolio argument the search techniques race each other on every instance.
+ *
+ * With --batch FILE (or - for the standard input) the instances are read from the file instead,
+ * one per line, and solved in parallel, writing one JSON record per instance to the standard
+ * output. The batch mode accepts --technique NAME (beam by default), --time-limit MILLIS and
+ * --threads N, as well as --store FILE to share a persistent transposition store between the
+ * searches and across runs, of --store-size entries when it is created.
+ *
+ * With --generate FILE random instances are written to an instance file (see InstanceFile),
+ * using --count, --rows, --cols, --colors, --hardness and --seed, and with --instances FILE
+ * the instances of such a file are solved instead of the predefined ones.
  */
 public class App
 {
-    public static void main( String[] args )
+    public static void main( String[] args ) throws IOException, InterruptedException
     {
-        LandProblem problem = new LandProblem();
+        List<String> arguments = Arrays.asList(args);
+        String batch = option(arguments, "--batch", null);
+        if(batch != null) {
+            BatchSolver solver = new BatchSolver(
+                    SearchTaskManager.techniqueNamed(option(arguments, "--technique", "beam")),
+                    Integer.parseInt(option(arguments, "--threads", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                    Long.parseLong(option(arguments, "--time-limit", String.valueOf(BatchSolver.DEFAULT_TIME_LIMIT_MILLIS))));
+            String store = option(arguments, "--store", null);
+            TranspositionStore transpositionStore = store == null ? null
+                    : TranspositionStore.open(Paths.get(store), Integer.parseInt(option(arguments, "--store-size", String.valueOf(1 << 20))));
+            solver.setTranspositionStore(transpositionStore);
+            try(BufferedReader input = batch.equals("-")
+                        ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                        : Files.newBufferedReader(Paths.get(batch));
+                BufferedWriter output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+                long instances = solver.solve(input, output);
+                System.err.printf("Solved %d instances%n", instances);
+            } finally {
+                if(transpositionStore != null)
+                    transpositionStore.close();
+            }
+            return;
+        }
+
+        String generate = option(arguments, "--generate", null);
+        if(generate != null) {
+            InstanceGenerator generator = new InstanceGenerator(Long.parseLong(option(arguments, "--seed", "1")));
+            List<Instance> instances = generator.generate(
+                    Integer.parseInt(option(arguments, "--count", "1")),
+                    Integer.parseInt(option(arguments, "--rows", "50")),
+                    Integer.parseInt(option(arguments, "--cols", "50")),
+                    Integer.parseInt(option(arguments, "--colors", "8")),
+                    Double.parseDouble(option(arguments, "--hardness", "0.5")));
+            InstanceFile.writeAll(Paths.get(generate), instances);
+            System.err.printf("Generated %d instances%n", instances.size());
+            return;
+        }
+
+        boolean portfolio = arguments.contains("--portfolio");
+        String instanceFile = option(arguments, "--instances", null);
+        LandProblem problem;
+        if(instanceFile != null) {
+            Map<IState, Integer> instances = new LinkedHashMap<>();
+            for(Instance instance : InstanceFile.readAll(Paths.get(instanceFile)))
+                instances.put(instance.getState(), instance.getObjective());
+            problem = new LandProblem(portfolio, instances);
+        } else {
+            problem = new LandProblem(portfolio);
+        }
         problem.solve();
     }
+
+    /**
+     * Reads the value following an option in the arguments.
+     *
+     * @param arguments The command line arguments.
+     * @param name The name of the option.
+     * @param defaultValue The value when the option is absent.
+     * @return The value of the option.
+     */
+    private static String option(List<String> arguments, String name, String defaultValue) {
+        int index = arguments.indexOf(name);
+        if(index < 0)
+            return defaultValue;
+        if(index + 1 >= arguments.size())
+            throw new IllegalArgumentException("Missing value for " + name);
+        return arguments.get(index + 1);
+    }
 }
@@ -3,7 +3,7 @@ package com.jjginga;
 import com.jjginga.state.IState;
 import com.jjginga.state.LandMap;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -12,12 +12,44 @@ import java.util.Map;
  */
 public class LandProblem {
 
+    private final boolean portfolio;//whether the techniques race each other instead of running in sequence
+    private final Map<IState, Integer> instances;//initial state of each instance mapped to its objective
+
+    /**
+     * Constructs a problem whose instances are solved running the techniques one after the other.
+     */
+    public LandProblem() {
+        this(false);
+    }
+
     /**
-     * Solves the land permutation problem for predefined instances.
+     * Constructs a problem choosing how the techniques are run on each instance.
+     *
+     * @param portfolio True to race all the techniques concurrently and keep the first solution.
+     */
+    public LandProblem(boolean portfolio) {
+        this(portfolio, instances());
+    }
+
+    /**
+     * Constructs a problem over given instances, such as the ones of an instance file.
+     *
+     * @param portfolio True to race all the techniques concurrently and keep the first solution.
+     * @param instances The initial state of each instance mapped to its objective, solved in iteration order.
+     */
+    public LandProblem(boolean portfolio, Map<IState, Integer> instances) {
+        this.portfolio = portfolio;
+        this.instances = instances;
+    }
+
+    /**
+     * Builds the predefined instances of the problem, in the order of the problem statement.
      * Each instance has a specific initial configuration and a target number of borders to achieve.
+     *
+     * @return The initial state of each instance mapped to its objective, in order.
      */
-    public void solve(){
-        Map<IState, Integer> landMapObjectives = new HashMap<>();
+    public static Map<IState, Integer> instances() {
+        Map<IState, Integer> landMapObjectives = new LinkedHashMap<>();
 
         landMapObjectives.put(new LandMap(new int[][]{{1,2,3},{1,2,2},{3,3,1}}), 6);
         landMapObjectives.put(new LandMap(new int[][]{{1,2,2,2},{1,2,1,1}}), 4);
@@ -27,10 +59,20 @@ public class LandProblem {
         landMapObjectives.put(new LandMap(new int[][]{{1,1,2,1,1,1,1,2,1,1},{2,2,1,2,1,2,2,1,2,1},{1,1,2,1,2,1,1,2,1,2},{2,1,1,2,1,2,1,1,2,1},{1,1,2,1,1,1,1,2,1,1},{2,2,1,2,1,2,2,1,2,1},{1,1,2,1,2,1,1,2,1,2},{2,1,1,2,1,2,1,1,2,1}}), 41);
         landMapObjectives.put(new LandMap(new int[][]{{1,1,2,8,8,1,4,3,1,4},{2,2,1,8,3,8,4,3,2,1},{1,1,8,8,3,1,6,2,1,4},{2,1,1,3,1,2,1,1,4,4},{1,7,7,3,1,1,5,6,4,4},{2,2,1,3,1,2,2,1,6,6},{1,7,2,7,5,5,5,5,1,6},{2,7,7,7,1,5,5,1,6,6}}), 70);
 
+        return landMapObjectives;
+    }
+
+    /**
+     * Solves the land permutation problem for each instance, in order.
+     */
+    public void solve(){
         int i = 0;
-        for(Map.Entry<IState, Integer> entry : landMapObjectives.entrySet()){
+        for(Map.Entry<IState, Integer> entry : instances.entrySet()){
             System.out.printf("Instance %d%n", ++i);
-            SearchTaskManager.executeSearch(entry.getKey(), entry.getValue());
+            if(portfolio)
+                SearchTaskManager.executePortfolio(entry.getKey(), entry.getValue());
+            else
+                SearchTaskManager.executeSearch(entry.getKey(), entry.getValue());
         }
     }
 }
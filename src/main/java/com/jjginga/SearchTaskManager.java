@@ -1,66 +1,136 @@
 package com.jjginga;
 
 import com.jjginga.result.SearchResult;
+import com.jjginga.searchtechnique.AStar;
 import com.jjginga.searchtechnique.AbstractSearchTechnique;
 import com.jjginga.searchtechnique.BFS;
+import com.jjginga.searchtechnique.BeamSearch;
+import com.jjginga.searchtechnique.BranchAndBound;
 import com.jjginga.searchtechnique.DFS;
+import com.jjginga.searchtechnique.IDAStar;
 import com.jjginga.searchtechnique.IterativeDDFS;
+import com.jjginga.searchtechnique.ParallelBFS;
+import com.jjginga.service.SearchService;
 import com.jjginga.state.IState;
 
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.BiFunction;
 
 /**
  * Manages the execution of search tasks using different search techniques.
- * This class initializes and executes searches with BFS, DFS, and IDDFS algorithms,
+ * This class initializes and executes searches with BFS, parallel BFS, DFS, IDDFS, A*, IDA*, Beam Search and Branch and Bound algorithms,
  * handling the scheduling and result processing in a concurrent environment.
+ * The techniques can either run one after the other or race each other as a portfolio, on a
+ * SearchService shared by every instance.
  */
 public class SearchTaskManager {
 
+    //time limit of each search, after which it reports the best state it reached
+    private static final long TIMEOUT_SECONDS = 60;
+
+    //techniques used for each instance by name, in the order they are run sequentially
+    private static final Map<String, BiFunction<IState, Integer, AbstractSearchTechnique>> TECHNIQUES = new LinkedHashMap<>();
+    static {
+        TECHNIQUES.put("bfs", BFS::new);
+        TECHNIQUES.put("parallel-bfs", ParallelBFS::new);
+        TECHNIQUES.put("dfs", DFS::new);
+        TECHNIQUES.put("iddfs", IterativeDDFS::new);
+        TECHNIQUES.put("astar", AStar::new);
+        TECHNIQUES.put("idastar", IDAStar::new);
+        TECHNIQUES.put("beam", BeamSearch::new);
+        TECHNIQUES.put("bnb", BranchAndBound::new);
+    }
+
+    //service running the searches, shared by every instance and never keeping the JVM alive,
+    //with room for every technique of a portfolio to run at once
+    private static final SearchService SERVICE = new SearchService(
+            Math.max(Runtime.getRuntime().availableProcessors(), TECHNIQUES.size()));
 
     /**
-     * Executes search operations for a given state and objective using BFS, DFS, and IDDFS techniques.
+     * Executes search operations for a given state and objective using BFS, parallel BFS, DFS, IDDFS, A*, IDA*, Beam Search and Branch and Bound techniques.
      * Each search is performed sequentially with a timeout constraint.
      *
      * @param state The initial state for the search.
      * @param objective The objective to be achieved by the search, typically a target number of borders.
      */
     public static void executeSearch(IState state, int objective) {
-        AbstractSearchTechnique bfs = new BFS(state, objective);
-        executeSearch(bfs);
-        AbstractSearchTechnique dfs = new DFS(state, objective);
-        executeSearch(dfs);
-        AbstractSearchTechnique iddfs = new IterativeDDFS(state, objective);
-        executeSearch(iddfs);
+        for(BiFunction<IState, Integer, AbstractSearchTechnique> technique : TECHNIQUES.values())
+            executeSearch(technique.apply(state, objective));
+    }
+
+    /**
+     * Executes all the techniques concurrently on a shared pool for a given state and objective.
+     * The first technique to find a solution wins and the others are cancelled. The race ends
+     * without a winner when every technique exhausted its search space or the timeout expired.
+     *
+     * @param state The initial state for the search.
+     * @param objective The objective to be achieved by the search, typically a target number of borders.
+     */
+    public static void executePortfolio(IState state, int objective) {
+        List<AbstractSearchTechnique> techniques = new ArrayList<>();
+        for(BiFunction<IState, Integer, AbstractSearchTechnique> technique : TECHNIQUES.values())
+            techniques.add(technique.apply(state, objective));
+
+        CompletableFuture<SearchResult> race = SERVICE.race(techniques, TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+        try {
+            SearchResult result = race.get();
+            if(result.isSolutionFound()) {
+                System.out.println(result.getTechnique());
+                System.out.println(result);
+            } else {
+                System.err.println("No technique found a solution, the closest was");
+                System.err.println(result.getTechnique());
+                System.err.println(result);
+            }
+        } catch (InterruptedException e) {
+            race.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Looks up a technique by its short name: bfs, parallel-bfs, dfs, iddfs, astar, idastar, beam or bnb.
+     *
+     * @param name The name of the technique.
+     * @return The constructor of the technique, taking the initial state and the objective.
+     */
+    public static BiFunction<IState, Integer, AbstractSearchTechnique> techniqueNamed(String name) {
+        BiFunction<IState, Integer, AbstractSearchTechnique> technique = TECHNIQUES.get(name);
+        if(technique == null)
+            throw new IllegalArgumentException("Unknown technique " + name + ", expected one of " + TECHNIQUES.keySet());
+        return technique;
     }
 
     /**
      * Executes a single search operation using the provided search technique.
-     * Manages the execution in a separate thread with a fixed timeout, handling search completion and timeouts.
+     * The search runs on the shared service with a time limit, after which it reports the best
+     * state it reached.
      *
      * @param searchTechnique The search technique to be executed.
      */
     private static void executeSearch(AbstractSearchTechnique searchTechnique) {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-
-        Future<SearchResult> future = executor.submit(searchTechnique);
+        long timeLimitMillis = TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        CompletableFuture<SearchResult> future = SERVICE.submit(searchTechnique, timeLimitMillis);
 
         try {
-            //wait for the search to complete or timeout
-            SearchResult result = future.get(60, TimeUnit.SECONDS);
+            //wait for the search to complete or run out of time
+            SearchResult result = future.get();
+            if(!result.isSolutionFound() && result.getExecutionTime() >= TimeUnit.MILLISECONDS.toNanos(timeLimitMillis)) {
+                System.err.println(searchTechnique);
+                System.err.printf("Search timed out: %s%n", result);
+                return;
+            }
             System.out.println(searchTechnique);
             System.out.println(result);
-        } catch (TimeoutException e) {
-            //handle search timeout atempting to retrive the last known result
+            System.out.println(result.getMetrics());
+        } catch (InterruptedException e) {
             future.cancel(true);
-            searchTechnique.awaitCompletion();
-            SearchResult currentResult = searchTechnique.getNotFoundResult();
-            System.err.println(searchTechnique);
-            System.err.printf("Search timed out: %s%n", currentResult);
-
-        } catch (InterruptedException | ExecutionException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
             e.printStackTrace();
-        } finally {
-            executor.shutdown();
         }
     }
 
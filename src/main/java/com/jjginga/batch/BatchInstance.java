@@ -0,0 +1,77 @@
+package com.jjginga.batch;
+
+import com.jjginga.state.IState;
+import com.jjginga.state.LandMap;
+
+/**
+ * An instance read by the batch solver: an identifier, a map and the number of borders sought.
+ * Instances are read one per line, as the identifier, the objective and the rows of the map
+ * separated by spaces, the rows being separated by slashes and the owners of a row by commas:
+ *
+ *     instance-1 6 1,2,3/1,2,2/3,3,1
+ *
+ * Blank lines and lines starting with # are ignored by the solver.
+ */
+public class BatchInstance {
+    private final String id;//identifier of the instance, copied to its result
+    private final int[][] map;//initial owners of the cells
+    private final int objective;//number of borders sought
+
+    /**
+     * Constructs an instance.
+     *
+     * @param id The identifier of the instance.
+     * @param map The initial owners of the cells.
+     * @param objective The number of borders sought.
+     */
+    public BatchInstance(String id, int[][] map, int objective) {
+        this.id = id;
+        this.map = map;
+        this.objective = objective;
+    }
+
+    /**
+     * Parses an instance from a line of input.
+     *
+     * @param line The line, in the format described above.
+     * @return The instance.
+     * @throws IllegalArgumentException If the line is not a valid instance.
+     */
+    public static BatchInstance parse(String line) {
+        String[] fields = line.trim().split("\\s+");
+        if(fields.length != 3)
+            throw new IllegalArgumentException("Expected an identifier, an objective and a map, found " + fields.length + " fields");
+
+        try {
+            int objective = Integer.parseInt(fields[1]);
+            String[] rows = fields[2].split("/");
+            int[][] map = new int[rows.length][];
+            for(int row = 0; row < rows.length; row++) {
+                String[] owners = rows[row].split(",");
+                map[row] = new int[owners.length];
+                for(int col = 0; col < owners.length; col++)
+                    map[row][col] = Integer.parseInt(owners[col]);
+            }
+            return new BatchInstance(fields[0], map, objective);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getObjective() {
+        return objective;
+    }
+
+    /**
+     * Builds the initial state of the instance.
+     *
+     * @return A new state holding the map.
+     */
+    public IState toState() {
+        return new LandMap(map);
+    }
+}
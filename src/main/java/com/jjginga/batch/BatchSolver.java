@@ -0,0 +1,216 @@
+package com.jjginga.batch;
+
+import com.jjginga.result.SearchResult;
+import com.jjginga.searchtechnique.AbstractSearchTechnique;
+import com.jjginga.state.IState;
+import com.jjginga.visited.TranspositionStore;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.StringJoiner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+/**
+ * Solves a stream of instances (see BatchInstance for the input format) on a bounded
+ * work-stealing pool, writing one JSON record per instance, as a line, as soon as it is solved.
+ * Records therefore come out in completion order, and carry the identifier of their instance
+ * and the lower bound on the borders it can reach.
+ *
+ * Every instance gets exactly one record: one that cannot be parsed or whose search fails gets
+ * an error record instead of stopping the batch.
+ *
+ * Instances are read lazily: a semaphore bounds the number of instances read but not yet
+ * written, so the reader blocks while the pool is saturated and memory stays bounded whatever
+ * the length of the input. Each search runs with a time limit and, when it expires, the record
+ * reports the best state reached instead of a solution.
+ *
+ * With a transposition store, every search of the batch shares what the others proved, and
+ * instances already solved in a previous run are answered from the store.
+ */
+public class BatchSolver {
+
+    //time given to each instance when none is given
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 10_000;
+
+    private final BiFunction<IState, Integer, AbstractSearchTechnique> technique;//builds the search of each instance
+    private final int parallelism;//number of instances solved at the same time
+    private final long timeLimitMillis;//time given to each instance
+    private final int maxInFlight;//instances read but not yet written
+    private TranspositionStore transpositionStore;//shared by the searches, null when there is none
+
+    /**
+     * Constructs a batch solver using one worker per available processor and the default time limit.
+     *
+     * @param technique The constructor of the search technique, taking the initial state and the objective.
+     */
+    public BatchSolver(BiFunction<IState, Integer, AbstractSearchTechnique> technique) {
+        this(technique, Runtime.getRuntime().availableProcessors(), DEFAULT_TIME_LIMIT_MILLIS);
+    }
+
+    /**
+     * Constructs a batch solver.
+     *
+     * @param technique The constructor of the search technique, taking the initial state and the objective.
+     * @param parallelism The number of instances solved at the same time.
+     * @param timeLimitMillis The time given to each instance, in milliseconds, 0 for no limit.
+     */
+    public BatchSolver(BiFunction<IState, Integer, AbstractSearchTechnique> technique, int parallelism, long timeLimitMillis) {
+        if(parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be at least 1");
+        this.technique = technique;
+        this.parallelism = parallelism;
+        this.timeLimitMillis = timeLimitMillis;
+        //a few queued instances per worker keep it busy without reading far ahead
+        this.maxInFlight = parallelism * 2;
+    }
+
+    /**
+     * Makes every search of the batch use and feed a store of proven facts.
+     *
+     * @param transpositionStore The store, null to stop using one.
+     */
+    public void setTranspositionStore(TranspositionStore transpositionStore) {
+        this.transpositionStore = transpositionStore;
+    }
+
+    /**
+     * Solves every instance of the input, returning once all of their records were written.
+     *
+     * @param input The instances, one per line.
+     * @param output Receives one JSON record per instance, one per line.
+     * @return The number of instances read.
+     * @throws IOException If the input cannot be read or the output written.
+     * @throws InterruptedException If the thread is interrupted while waiting for the searches.
+     */
+    public long solve(BufferedReader input, Writer output) throws IOException, InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        //first failure to write a record, reported once every search is over
+        AtomicReference<IOException> writeFailure = new AtomicReference<>();
+
+        long instances = 0;
+        long lineNumber = 0;
+        try {
+            String line;
+            while(writeFailure.get() == null && (line = input.readLine()) != null) {
+                lineNumber++;
+                if(line.isBlank() || line.startsWith("#"))
+                    continue;
+
+                //blocks while the pool is saturated
+                inFlight.acquire();
+                instances++;
+                String instanceLine = line;
+                long instanceNumber = lineNumber;
+                pool.execute(() -> {
+                    try {
+                        String record;
+                        try {
+                            record = solveLine(instanceLine, instanceNumber);
+                        } catch (Throwable e) {
+                            //whatever went wrong, the line still gets its record
+                            record = "{\"line\":" + instanceNumber + ",\"error\":" + quote(String.valueOf(e)) + "}";
+                        }
+                        synchronized(output) {
+                            output.write(record);
+                            output.write('\n');
+                            output.flush();
+                        }
+                    } catch (IOException e) {
+                        writeFailure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+
+            //every permit is back once the last record was written
+            inFlight.acquire(maxInFlight);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if(writeFailure.get() != null)
+            throw writeFailure.get();
+        return instances;
+    }
+
+    /**
+     * Parses and solves the instance of a line.
+     *
+     * @param line The line of the instance.
+     * @param lineNumber The number of the line in the input, identifying instances that cannot be parsed.
+     * @return The JSON record of the result.
+     */
+    private String solveLine(String line, long lineNumber) {
+        BatchInstance instance;
+        try {
+            instance = BatchInstance.parse(line);
+        } catch (IllegalArgumentException e) {
+            return "{\"line\":" + lineNumber + ",\"error\":" + quote(e.getMessage()) + "}";
+        }
+
+        try {
+            IState state = instance.toState();
+            AbstractSearchTechnique search = technique.apply(state, instance.getObjective());
+            search.setTimeLimit(timeLimitMillis);
+            search.setTranspositionStore(transpositionStore);
+            return record(instance, state, search.call());
+        } catch (RuntimeException | StackOverflowError | OutOfMemoryError e) {
+            return "{\"id\":" + quote(instance.getId()) + ",\"error\":" + quote(String.valueOf(e)) + "}";
+        }
+    }
+
+    /**
+     * Writes the result of an instance as a JSON record.
+     *
+     * @param instance The instance.
+     * @param initialState The initial state of the instance.
+     * @param result The result of its search.
+     * @return The JSON record.
+     */
+    private static String record(BatchInstance instance, IState initialState, SearchResult result) {
+        IState state = result.getState();
+        StringBuilder record = new StringBuilder();
+        record.append("{\"id\":").append(quote(instance.getId()))
+              .append(",\"objective\":").append(instance.getObjective())
+              .append(",\"initialBorders\":").append(initialState.getObjectiveValue())
+              .append(",\"lowerBound\":").append(initialState.getReachableLowerBound())
+              .append(",\"solved\":").append(result.isSolutionFound());
+        if(state != null)
+            record.append(",\"borders\":").append(state.getObjectiveValue())
+                  .append(",\"depth\":").append(state.getDepth());
+        record.append(",\"generatedStates\":").append(result.getGeneratedStates())
+              .append(",\"timeMillis\":").append(result.getExecutionTime() / 1_000_000);
+        if(state != null && result.getMoves() != null) {
+            StringJoiner moves = new StringJoiner(",", "[", "]");
+            for(int move : result.getMoves())
+                moves.add(quote(state.describeMove(move)));
+            record.append(",\"moves\":").append(moves);
+        }
+        return record.append('}').toString();
+    }
+
+    /**
+     * Quotes a string as a JSON string literal.
+     *
+     * @param value The string.
+     * @return The JSON literal.
+     */
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for(char c : value.toCharArray()) {
+            if(c == '"' || c == '\\')
+                quoted.append('\\').append(c);
+            else if(c < 0x20)
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,27 @@
+package com.jjginga.heuristic;
+
+import com.jjginga.state.IState;
+
+/**
+ * Admissible heuristic based on the maximum reduction a single move can achieve. If the
+ * objective value is above the objective by some amount and no move can reduce it by more
+ * than R, at least ceil(amount / R) moves are still needed.
+ *
+ * The heuristic is also consistent: a move lowers the objective value by at most R, so the
+ * estimate drops by at most one per move.
+ */
+public class BorderReductionHeuristic implements IHeuristic {
+
+    @Override
+    public int estimate(IState state, int objective) {
+        int excess = state.getObjectiveValue() - objective;
+        if(excess <= 0)
+            return 0;
+
+        int maxReduction = state.getMaxMoveReduction();
+        //no move can ever reduce the value, so the objective is out of reach
+        if(maxReduction <= 0)
+            return Integer.MAX_VALUE;
+        return (excess + maxReduction - 1) / maxReduction;
+    }
+}
@@ -0,0 +1,21 @@
+package com.jjginga.heuristic;
+
+import com.jjginga.state.IState;
+
+/**
+ * Defines the interface for heuristics used by informed search techniques. A heuristic
+ * estimates how many moves are still needed to reach a state meeting the objective.
+ */
+public interface IHeuristic {
+
+    /**
+     * Estimates the number of moves needed to go from a state to one meeting the objective.
+     * The estimate must never exceed the real number of moves (admissible) for the informed
+     * techniques to return solutions of minimum depth.
+     *
+     * @param state The state to evaluate.
+     * @param objective The objective to achieve.
+     * @return The estimated number of remaining moves, 0 if the state already meets the objective.
+     */
+    public int estimate(IState state, int objective);
+}
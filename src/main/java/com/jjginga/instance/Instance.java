@@ -0,0 +1,30 @@
+package com.jjginga.instance;
+
+import com.jjginga.state.LandMap;
+
+/**
+ * An instance of the problem: an initial map and the number of borders sought.
+ */
+public class Instance {
+    private final LandMap state;//initial configuration of the map
+    private final int objective;//number of borders sought
+
+    /**
+     * Constructs an instance.
+     *
+     * @param state The initial configuration of the map.
+     * @param objective The number of borders sought.
+     */
+    public Instance(LandMap state, int objective) {
+        this.state = state;
+        this.objective = objective;
+    }
+
+    public LandMap getState() {
+        return state;
+    }
+
+    public int getObjective() {
+        return objective;
+    }
+}
@@ -0,0 +1,269 @@
+package com.jjginga.instance;
+
+import com.jjginga.state.LandMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads and writes files of instances in a compact binary format. A file is a sequence of
+ * instances, each made of a header followed by the packed cells of its map, all little-endian:
+ *
+ *     int magic             0x50414D4C ("LMAP")
+ *     int rows, cols        dimensions of the map
+ *     int colours           number of distinct owners
+ *     int objective         number of borders sought
+ *     int bitsPerCell       bits taken by each cell
+ *     int[colours] palette  the owners, in increasing order
+ *     padding               zeros up to a multiple of 8 bytes
+ *     long[] cells          the colour index of each cell, in row-major order
+ *
+ * The cells are stored exactly as LandMap packs them in memory, so loading an instance is a bulk
+ * copy of the words from the mapped file into the state, with no parsing or decoding per cell. A 50x50
+ * map with 8 owners takes about 1.3 KB.
+ */
+public final class InstanceFile {
+
+    //first word of every instance, "LMAP" read as a little-endian int
+    public static final int MAGIC = 0x50414D4C;
+
+    //size of the fixed part of a header, before the palette
+    private static final int HEADER_BYTES = 6 * Integer.BYTES;
+    //size of the mapped window of a reader, an instance may straddle two windows
+    private static final int WINDOW_BYTES = 1 << 24;
+
+    private InstanceFile() {
+    }
+
+    /**
+     * Computes the number of longs taken by the packed cells of a map.
+     *
+     * @param rows The number of rows of the map.
+     * @param cols The number of columns of the map.
+     * @param bitsPerCell The number of bits per cell.
+     * @return The number of packed words.
+     */
+    private static int words(int rows, int cols, int bitsPerCell) {
+        long bits = (long) rows * cols * bitsPerCell;
+        return Math.toIntExact((bits + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    /**
+     * Computes the size of the header of an instance, padding included.
+     *
+     * @param colors The number of distinct owners.
+     * @return The size in bytes, a multiple of 8.
+     */
+    private static int headerBytes(int colors) {
+        int bytes = HEADER_BYTES + colors * Integer.BYTES;
+        return (bytes + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    /**
+     * Reads every instance of a file.
+     *
+     * @param path The file.
+     * @return The instances, in the order of the file.
+     */
+    public static List<Instance> readAll(Path path) {
+        List<Instance> instances = new ArrayList<>();
+        reader(path).forEachRemaining(instances::add);
+        return instances;
+    }
+
+    /**
+     * Opens a reader over the instances of a file, which are loaded one by one as it is iterated.
+     *
+     * @param path The file.
+     * @return The reader.
+     */
+    public static Reader reader(Path path) {
+        return new Reader(path);
+    }
+
+    /**
+     * Opens a writer that replaces the content of a file.
+     *
+     * @param path The file.
+     * @return The writer.
+     */
+    public static Writer writer(Path path) {
+        return new Writer(path);
+    }
+
+    /**
+     * Writes a list of instances to a file, replacing its content.
+     *
+     * @param path The file.
+     * @param instances The instances.
+     */
+    public static void writeAll(Path path, Iterable<Instance> instances) {
+        try(Writer writer = writer(path)) {
+            for(Instance instance : instances)
+                writer.write(instance);
+        }
+    }
+
+    /**
+     * Iterates over the instances of a file through read-only mapped windows, which are moved
+     * forward as the instances are read. The file does not need to stay open, the mappings
+     * remain valid until they are garbage collected.
+     */
+    public static final class Reader implements Iterator<Instance> {
+        private final Path path;
+        private final long size;//size of the file in bytes
+        private MappedByteBuffer window;
+        private long windowStart;//position of the window in the file
+
+        private Reader(Path path) {
+            this.path = path;
+            try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                size = channel.size();
+                map(0, 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Maps a window starting at a position of the file.
+         *
+         * @param position The position of the window in the file.
+         * @param minimum The number of bytes the window must hold at least.
+         */
+        private void map(long position, long minimum) throws IOException {
+            if(position + minimum > size)
+                throw new IllegalArgumentException("Truncated instance at byte " + position + " of " + path);
+            windowStart = position;
+            long length = Math.min(size - position, Math.max(WINDOW_BYTES, minimum));
+            try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            }
+            window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * Makes sure the window holds the given number of bytes after the current position.
+         */
+        private void require(long bytes) {
+            if(window.remaining() < bytes) {
+                try {
+                    map(windowStart + window.position(), bytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return windowStart + window.position() < size;
+        }
+
+        @Override
+        public Instance next() {
+            if(!hasNext())
+                throw new NoSuchElementException();
+
+            long start = windowStart + window.position();
+            require(HEADER_BYTES);
+            int magic = window.getInt();
+            if(magic != MAGIC)
+                throw new IllegalArgumentException("No instance at byte " + start + " of " + path);
+            int rows = window.getInt();
+            int cols = window.getInt();
+            int colors = window.getInt();
+            int objective = window.getInt();
+            int bitsPerCell = window.getInt();
+            if(rows <= 0 || cols <= 0 || colors <= 0 || bitsPerCell != LandMap.bitsPerCell(colors))
+                throw new IllegalArgumentException("Invalid header at byte " + start + " of " + path);
+
+            //the window is moved back to the start of the instance if the rest does not fit
+            long bytes = headerBytes(colors) + (long) words(rows, cols, bitsPerCell) * Long.BYTES;
+            if(window.remaining() < bytes - HEADER_BYTES) {
+                window.position(window.position() - HEADER_BYTES);
+                require(bytes);
+                window.position(window.position() + HEADER_BYTES);
+            }
+
+            int[] palette = new int[colors];
+            window.asIntBuffer().get(palette);
+            window.position(window.position() + headerBytes(colors) - HEADER_BYTES);
+
+            //the words are copied as they are, in the layout LandMap uses in memory
+            long[] packed = new long[words(rows, cols, bitsPerCell)];
+            window.asLongBuffer().get(packed);
+            window.position(window.position() + packed.length * Long.BYTES);
+
+            return new Instance(LandMap.fromPacked(rows, cols, palette, packed), objective);
+        }
+    }
+
+    /**
+     * Appends instances to a file.
+     */
+    public static final class Writer implements AutoCloseable {
+        private final FileChannel channel;
+
+        private Writer(Path path) {
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Appends an instance.
+         *
+         * @param instance The instance.
+         */
+        public void write(Instance instance) {
+            LandMap state = instance.getState();
+            int[] palette = state.getPalette();
+            int bitsPerCell = LandMap.bitsPerCell(palette.length);
+            long[] packed = state.pack();
+
+            ByteBuffer buffer = ByteBuffer.allocate(headerBytes(palette.length) + packed.length * Long.BYTES)
+                                          .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC)
+                  .putInt(state.getRows())
+                  .putInt(state.getCols())
+                  .putInt(palette.length)
+                  .putInt(instance.getObjective())
+                  .putInt(bitsPerCell);
+            buffer.asIntBuffer().put(palette);
+            buffer.position(headerBytes(palette.length));
+            buffer.asLongBuffer().put(packed);
+            buffer.position(buffer.capacity());
+            buffer.flip();
+
+            try {
+                while(buffer.hasRemaining())
+                    channel.write(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
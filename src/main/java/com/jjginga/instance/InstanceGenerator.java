@@ -0,0 +1,179 @@
+package com.jjginga.instance;
+
+import com.jjginga.state.LandMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+
+/**
+ * Generates random instances of any size, reproducibly from a seed. The owners are numbered
+ * from 1 and each gets a share of the cells proportional to its weight, the cells being then
+ * shuffled over the map.
+ *
+ * The objective of an instance is always feasible: the map is first improved by a greedy
+ * descent, which applies every swap removing borders until none is left, and the objective
+ * is placed between the initial number of borders and the number reached by the descent
+ * according to the requested hardness. A hardness of 1 asks for at least as much as the descent
+ * achieved, searches may still do better.
+ */
+public class InstanceGenerator {
+
+    private final SplittableRandom random;//source of the layouts, seeded for reproducibility
+
+    /**
+     * Constructs a generator. Two generators with the same seed produce the same instances.
+     *
+     * @param seed The seed of the random layouts.
+     */
+    public InstanceGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Generates an instance whose owners share the cells evenly.
+     *
+     * @param rows Number of rows of the map.
+     * @param cols Number of columns of the map.
+     * @param colors Number of owners.
+     * @param hardness From 0, the initial number of borders, to 1, the number reached by the greedy descent.
+     * @return The instance.
+     */
+    public Instance generate(int rows, int cols, int colors, double hardness) {
+        double[] weights = new double[colors];
+        Arrays.fill(weights, 1);
+        return generate(rows, cols, weights, hardness);
+    }
+
+    /**
+     * Generates an instance whose owners share the cells according to their weights.
+     *
+     * @param rows Number of rows of the map.
+     * @param cols Number of columns of the map.
+     * @param weights Relative share of the cells of each owner, weights[i] being the share of owner i + 1.
+     * @param hardness From 0, the initial number of borders, to 1, the number reached by the greedy descent.
+     * @return The instance.
+     */
+    public Instance generate(int rows, int cols, double[] weights, double hardness) {
+        if(rows <= 0 || cols <= 0)
+            throw new IllegalArgumentException("The map must have at least one cell");
+        if(hardness < 0 || hardness > 1)
+            throw new IllegalArgumentException("The hardness must be between 0 and 1");
+
+        int[] owners = shuffledOwners(rows * cols, weights);
+        int[][] map = new int[rows][cols];
+        for(int row = 0; row < rows; row++)
+            System.arraycopy(owners, row * cols, map[row], 0, cols);
+
+        LandMap state = new LandMap(map);
+        int initial = state.getObjectiveValue();
+        int reached = descend(state);
+        int objective = initial - (int) Math.round(hardness * (initial - reached));
+        return new Instance(new LandMap(map), objective);
+    }
+
+    /**
+     * Generates several instances with the same parameters.
+     *
+     * @param count Number of instances.
+     * @param rows Number of rows of each map.
+     * @param cols Number of columns of each map.
+     * @param colors Number of owners of each map.
+     * @param hardness From 0, the initial number of borders, to 1, the number reached by the greedy descent.
+     * @return The instances.
+     */
+    public List<Instance> generate(int count, int rows, int cols, int colors, double hardness) {
+        List<Instance> instances = new ArrayList<>(count);
+        for(int i = 0; i < count; i++)
+            instances.add(generate(rows, cols, colors, hardness));
+        return instances;
+    }
+
+    /**
+     * Deals the cells to the owners in proportion to their weights, by largest remainder, and
+     * shuffles them.
+     *
+     * @param cells Number of cells of the map.
+     * @param weights Relative share of each owner.
+     * @return The owner of each cell, in row-major order.
+     */
+    private int[] shuffledOwners(int cells, double[] weights) {
+        double total = 0;
+        for(double weight : weights) {
+            if(!(weight >= 0) || Double.isInfinite(weight))
+                throw new IllegalArgumentException("The weights must be finite and not negative");
+            total += weight;
+        }
+        if(total == 0)
+            throw new IllegalArgumentException("At least one weight must be positive");
+
+        int[] counts = new int[weights.length];
+        double[] remainders = new double[weights.length];
+        int dealt = 0;
+        for(int owner = 0; owner < weights.length; owner++) {
+            double share = cells * weights[owner] / total;
+            counts[owner] = (int) share;
+            remainders[owner] = share - counts[owner];
+            dealt += counts[owner];
+        }
+        //the cells left by the rounding go to the largest remainders
+        for(; dealt < cells; dealt++) {
+            int largest = 0;
+            for(int owner = 1; owner < weights.length; owner++)
+                if(remainders[owner] > remainders[largest])
+                    largest = owner;
+            counts[largest]++;
+            remainders[largest] = -1;
+        }
+
+        int[] owners = new int[cells];
+        int cell = 0;
+        for(int owner = 0; owner < weights.length; owner++)
+            for(int i = 0; i < counts[owner]; i++)
+                owners[cell++] = owner + 1;
+
+        //fisher-yates shuffle
+        for(int i = cells - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int owner = owners[i];
+            owners[i] = owners[j];
+            owners[j] = owner;
+        }
+        return owners;
+    }
+
+    /**
+     * Improves a map in place until no swap removes a border. Each pass lists the valid moves of
+     * the map and applies, in turn, the ones that still remove borders, so that a pass takes time
+     * proportional to the size of the map whatever the number of moves applied.
+     *
+     * @param state The map, which is modified.
+     * @return The number of borders reached.
+     */
+    private static int descend(LandMap state) {
+        int[] moves = new int[16];
+        boolean improved = true;
+        while(improved) {
+            improved = false;
+            int count = 0;
+            PrimitiveIterator.OfInt iterator = state.moves();
+            while(iterator.hasNext()) {
+                if(count == moves.length)
+                    moves = Arrays.copyOf(moves, count * 2);
+                moves[count++] = iterator.nextInt();
+            }
+
+            for(int i = 0; i < count; i++) {
+                int borders = state.getObjectiveValue();
+                state.apply(moves[i]);
+                if(state.getObjectiveValue() < borders)
+                    improved = true;
+                else
+                    state.undo(moves[i]);
+            }
+        }
+        return state.getObjectiveValue();
+    }
+}
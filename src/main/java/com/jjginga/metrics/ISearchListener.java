@@ -0,0 +1,39 @@
+package com.jjginga.metrics;
+
+import com.jjginga.state.IState;
+
+/**
+ * Receives the metrics of a search while it runs. Samples are delivered periodically from a
+ * sampling thread, not from the thread running the search, so listeners must be quick and
+ * thread-safe. Listeners are also told about every improvement of the best state reached,
+ * from the thread running the search.
+ */
+public interface ISearchListener {
+
+    /**
+     * Called periodically while the search runs.
+     *
+     * @param technique The name of the search technique.
+     * @param snapshot The metrics of the search at the time of sampling.
+     */
+    public void onSample(String technique, MetricsSnapshot snapshot);
+
+    /**
+     * Called once when the search ends, from the thread that ran it.
+     *
+     * @param technique The name of the search technique.
+     * @param snapshot The final metrics of the search.
+     */
+    public default void onFinish(String technique, MetricsSnapshot snapshot) {
+    }
+
+    /**
+     * Called whenever the search reaches a state with fewer borders than any before.
+     *
+     * @param technique The name of the search technique.
+     * @param best The new best state, which must not be modified.
+     * @param moves The encoded moves leading from the initial state to it.
+     */
+    public default void onImprovement(String technique, IState best, int[] moves) {
+    }
+}
@@ -0,0 +1,40 @@
+package com.jjginga.metrics;
+
+/**
+ * Emits every sample of the metrics as a JFR event (com.jjginga.SearchSample), so that searches
+ * can be observed in a flight recording alongside GC and CPU activity. Events cost next to
+ * nothing when no recording is running.
+ */
+public class JfrSearchListener implements ISearchListener {
+
+    @Override
+    public void onSample(String technique, MetricsSnapshot snapshot) {
+        commit(technique, snapshot, false);
+    }
+
+    @Override
+    public void onFinish(String technique, MetricsSnapshot snapshot) {
+        commit(technique, snapshot, true);
+    }
+
+    private static void commit(String technique, MetricsSnapshot snapshot, boolean last) {
+        SearchSampleEvent event = new SearchSampleEvent();
+        if(!event.isEnabled())
+            return;
+        event.technique = technique;
+        event.last = last;
+        event.expandedStates = snapshot.getExpandedStates();
+        event.expandedPerSecond = snapshot.getExpandedPerSecond();
+        event.frontierSize = snapshot.getFrontierSize();
+        event.peakFrontierSize = snapshot.getPeakFrontierSize();
+        event.visitedSize = snapshot.getVisitedSize();
+        event.peakVisitedSize = snapshot.getPeakVisitedSize();
+        event.duplicateRatio = snapshot.getDuplicateRatio();
+        event.generationTimed = snapshot.isGenerationTimed();
+        if(snapshot.isGenerationTimed()) {
+            event.generationTime = snapshot.getGenerationNanos();
+            event.bookkeepingTime = snapshot.getBookkeepingNanos();
+        }
+        event.commit();
+    }
+}
@@ -0,0 +1,119 @@
+package com.jjginga.metrics;
+
+/**
+ * Immutable view of the metrics of a search at a given moment, with the rates derived from them.
+ */
+public class MetricsSnapshot {
+    private final long elapsedNanos;//time since the search started
+    private final long expandedStates;//states whose successors were generated
+    private final long generatedStates;//successors generated
+    private final long duplicateHits;//successors rejected as already visited
+    private final boolean generationTimed;//whether the time spent generating successors was measured
+    private final long generationNanos;//time spent generating successors
+    private final long frontierSize;//states waiting to be expanded
+    private final long peakFrontierSize;
+    private final long visitedSize;//states held for duplicate detection
+    private final long peakVisitedSize;
+
+    MetricsSnapshot(long elapsedNanos, long expandedStates, long generatedStates, long duplicateHits, boolean generationTimed,
+                    long generationNanos, long frontierSize, long peakFrontierSize, long visitedSize, long peakVisitedSize) {
+        this.elapsedNanos = elapsedNanos;
+        this.expandedStates = expandedStates;
+        this.generatedStates = generatedStates;
+        this.duplicateHits = duplicateHits;
+        this.generationTimed = generationTimed;
+        this.generationNanos = generationNanos;
+        this.frontierSize = frontierSize;
+        this.peakFrontierSize = peakFrontierSize;
+        this.visitedSize = visitedSize;
+        this.peakVisitedSize = peakVisitedSize;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getExpandedStates() {
+        return expandedStates;
+    }
+
+    public long getGeneratedStates() {
+        return generatedStates;
+    }
+
+    public long getDuplicateHits() {
+        return duplicateHits;
+    }
+
+    public long getFrontierSize() {
+        return frontierSize;
+    }
+
+    public long getPeakFrontierSize() {
+        return peakFrontierSize;
+    }
+
+    public long getVisitedSize() {
+        return visitedSize;
+    }
+
+    public long getPeakVisitedSize() {
+        return peakVisitedSize;
+    }
+
+    /**
+     * @return Whether the time spent generating successors was measured, which a search only does
+     *         when a listener receives its samples. Otherwise the generation and bookkeeping times
+     *         are not known.
+     */
+    public boolean isGenerationTimed() {
+        return generationTimed;
+    }
+
+    /**
+     * @return The time spent generating successors, in nanoseconds, 0 when it was not measured.
+     */
+    public long getGenerationNanos() {
+        return generationNanos;
+    }
+
+    /**
+     * @return The time spent on everything but generating successors (frontier, duplicate
+     *         detection, goal checks), in nanoseconds, 0 when the generation time was not measured.
+     */
+    public long getBookkeepingNanos() {
+        if(!generationTimed)
+            return 0;
+        return Math.max(0, elapsedNanos - generationNanos);
+    }
+
+    /**
+     * @return The average number of states expanded per second since the search started.
+     */
+    public double getExpandedPerSecond() {
+        return elapsedNanos == 0 ? 0 : expandedStates * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * @return The fraction of the generated successors that had already been visited.
+     */
+    public double getDuplicateRatio() {
+        return generatedStates == 0 ? 0 : (double) duplicateHits / generatedStates;
+    }
+
+    /**
+     * Returns a string representation of the metrics.
+     *
+     * @return A formatted string with the metrics and the rates derived from them, and the split
+     *         between generation and bookkeeping when it was measured.
+     */
+    @Override
+    public String toString() {
+        String metrics = String.format("expanded = %d (%.0f/s), peakFrontier = %d, peakVisited = %d, duplicateRatio = %.3f",
+                expandedStates, getExpandedPerSecond(), peakFrontierSize, peakVisitedSize, getDuplicateRatio());
+        if(!generationTimed)
+            return metrics;
+        return metrics + String.format(", generation = %.4f s, bookkeeping = %.4f s",
+                generationNanos / 1_000_000_000.0, getBookkeepingNanos() / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,127 @@
+package com.jjginga.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the counters of a running search: states expanded and generated, duplicates found,
+ * current and peak sizes of the frontier and of the visited set, and time spent generating
+ * successors. The search updates it as it goes and samplers read it from other threads at any
+ * time through snapshot(), so every counter is safe to update and read concurrently.
+ */
+public class SearchMetrics {
+
+    private final LongAdder expandedStates = new LongAdder();//states whose successors were generated
+    private final LongAdder generatedStates = new LongAdder();//successors generated
+    private final LongAdder duplicateHits = new LongAdder();//successors rejected as already visited
+    private final LongAdder generationNanos = new LongAdder();//time spent generating successors
+    private final AtomicLong frontierSize = new AtomicLong();//states waiting to be expanded
+    private final AtomicLong peakFrontierSize = new AtomicLong();
+    private final AtomicLong visitedSize = new AtomicLong();//states held for duplicate detection
+    private final AtomicLong peakVisitedSize = new AtomicLong();
+    private volatile boolean generationTimed;//whether the time spent generating successors is measured
+    private volatile long startTime;//System.nanoTime() when the search started
+    private volatile long endTime;//System.nanoTime() when the search ended, 0 while running
+
+    /**
+     * Marks the start of the search, from which the elapsed time is measured, and clears the
+     * counters and peaks left by a previous search.
+     *
+     * @param generationTimed Whether the search measures the time spent generating successors.
+     */
+    public void start(boolean generationTimed) {
+        this.generationTimed = generationTimed;
+        expandedStates.reset();
+        generatedStates.reset();
+        duplicateHits.reset();
+        generationNanos.reset();
+        frontierSize.set(0);
+        peakFrontierSize.set(0);
+        visitedSize.set(0);
+        peakVisitedSize.set(0);
+        startTime = System.nanoTime();
+        endTime = 0;
+    }
+
+    /**
+     * Marks the end of the search, which freezes the elapsed time.
+     */
+    public void stop() {
+        endTime = System.nanoTime();
+    }
+
+    /**
+     * Records the expansion of a state.
+     */
+    public void expanded() {
+        expandedStates.increment();
+    }
+
+    /**
+     * Records generated successors.
+     *
+     * @param count The number of successors generated.
+     */
+    public void generated(int count) {
+        generatedStates.add(count);
+    }
+
+    /**
+     * Records a successor rejected because it was already visited.
+     */
+    public void duplicate() {
+        duplicateHits.increment();
+    }
+
+    /**
+     * Records successors rejected because they were already visited, found in bulk.
+     *
+     * @param count The number of duplicates.
+     */
+    public void duplicates(long count) {
+        duplicateHits.add(count);
+    }
+
+    /**
+     * Records time spent generating successors.
+     *
+     * @param nanos The time spent, in nanoseconds.
+     */
+    public void generationTime(long nanos) {
+        generationNanos.add(nanos);
+    }
+
+    /**
+     * Records the current size of the frontier, updating its peak.
+     *
+     * @param size The number of states waiting to be expanded.
+     */
+    public void frontier(long size) {
+        frontierSize.set(size);
+        if(size > peakFrontierSize.get())
+            peakFrontierSize.accumulateAndGet(size, Math::max);
+    }
+
+    /**
+     * Records the current size of the visited set, updating its peak.
+     *
+     * @param size The number of states held for duplicate detection.
+     */
+    public void visited(long size) {
+        visitedSize.set(size);
+        if(size > peakVisitedSize.get())
+            peakVisitedSize.accumulateAndGet(size, Math::max);
+    }
+
+    /**
+     * Takes a consistent enough view of the counters, which keep changing while the search runs.
+     *
+     * @return The current values of the metrics.
+     */
+    public MetricsSnapshot snapshot() {
+        long end = endTime;
+        long elapsed = (end != 0 ? end : System.nanoTime()) - startTime;
+        return new MetricsSnapshot(elapsed, expandedStates.sum(), generatedStates.sum(), duplicateHits.sum(),
+                generationTimed, generationNanos.sum(), frontierSize.get(), peakFrontierSize.get(), visitedSize.get(), peakVisitedSize.get());
+    }
+}
@@ -0,0 +1,56 @@
+package com.jjginga.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event carrying a sample of the metrics of a running search.
+ */
+@Name("com.jjginga.SearchSample")
+@Label("Search Sample")
+@Category({"Land Permutation", "Search"})
+@Description("Periodic sample of the metrics of a running search")
+class SearchSampleEvent extends jdk.jfr.Event {
+    @Label("Technique")
+    String technique;
+
+    @Label("Final")
+    @Description("Whether this is the last sample, taken when the search ended")
+    boolean last;
+
+    @Label("Expanded States")
+    long expandedStates;
+
+    @Label("Expanded Per Second")
+    double expandedPerSecond;
+
+    @Label("Frontier Size")
+    long frontierSize;
+
+    @Label("Peak Frontier Size")
+    long peakFrontierSize;
+
+    @Label("Visited Size")
+    long visitedSize;
+
+    @Label("Peak Visited Size")
+    long peakVisitedSize;
+
+    @Label("Duplicate Ratio")
+    double duplicateRatio;
+
+    @Label("Generation Timed")
+    @Description("Whether the generation and bookkeeping times were measured")
+    boolean generationTimed;
+
+    @Label("Generation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long generationTime;
+
+    @Label("Bookkeeping Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long bookkeepingTime;
+}
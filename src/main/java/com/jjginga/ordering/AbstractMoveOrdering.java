@@ -0,0 +1,71 @@
+package com.jjginga.ordering;
+
+import com.jjginga.state.IState;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Base of the orderings that rank every valid move of a state before trying any of them. Moves
+ * are tried from the lowest rank to the highest, and moves of equal rank in the order the state
+ * generates them.
+ */
+public abstract class AbstractMoveOrdering implements IMoveOrdering {
+
+    @Override
+    public PrimitiveIterator.OfInt order(IState state) {
+        //each move is held with its rank in the high half, so sorting the longs sorts the moves
+        //by rank, and moves of equal rank by their encoding, the order they were generated in
+        long[] ranked = new long[16];
+        int count = 0;
+        PrimitiveIterator.OfInt moves = state.moves();
+        while(moves.hasNext()) {
+            int move = moves.nextInt();
+            if(count == ranked.length)
+                ranked = Arrays.copyOf(ranked, count * 2);
+            ranked[count++] = ((long) rank(state, move) << 32) | (move & 0xFFFFFFFFL);
+        }
+        Arrays.sort(ranked, 0, count);
+        return new RankedMoves(ranked, count);
+    }
+
+    /**
+     * Ranks a valid move of a state, the moves of lowest rank being tried first.
+     *
+     * @param state The state, which may be modified but must be restored before returning.
+     * @param move The encoded move.
+     * @return The rank of the move.
+     */
+    protected abstract int rank(IState state, int move);
+
+    @Override
+    public void onImprovement(int[] moves) {
+    }
+
+    /**
+     * Iterates over sorted moves, held in the low half of their ranked longs.
+     */
+    private static class RankedMoves implements PrimitiveIterator.OfInt {
+        private final long[] ranked;
+        private final int count;
+        private int next;//index of the move returned next
+
+        RankedMoves(long[] ranked, int count) {
+            this.ranked = ranked;
+            this.count = count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        @Override
+        public int nextInt() {
+            if(!hasNext())
+                throw new NoSuchElementException();
+            return (int) ranked[next++];
+        }
+    }
+}
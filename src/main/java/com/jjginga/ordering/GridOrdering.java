@@ -0,0 +1,21 @@
+package com.jjginga.ordering;
+
+import com.jjginga.state.IState;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Tries the moves in the order the state generates them, grid-scan order for a LandMap. It is
+ * the only ordering that stays lazy: moves that are never tried are never generated.
+ */
+public class GridOrdering implements IMoveOrdering {
+
+    @Override
+    public PrimitiveIterator.OfInt order(IState state) {
+        return state.moves();
+    }
+
+    @Override
+    public void onImprovement(int[] moves) {
+    }
+}
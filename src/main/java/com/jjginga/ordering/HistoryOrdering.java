@@ -0,0 +1,32 @@
+package com.jjginga.ordering;
+
+import com.jjginga.state.IState;
+
+import java.util.Arrays;
+
+/**
+ * Implements the history heuristic: tries first the moves that most often led to an improvement
+ * elsewhere in the search. A move is encoded by the cells it swaps, so a swap that paid off in
+ * one part of the search space is tried early wherever it is valid again. Every move on the
+ * path to an improving state is credited, the moves closer to it more than the earlier ones.
+ */
+public class HistoryOrdering extends AbstractMoveOrdering {
+
+    private int[] scores = new int[64];//credit of each encoded move
+
+    @Override
+    protected int rank(IState state, int move) {
+        return move < scores.length ? -scores[move] : 0;
+    }
+
+    @Override
+    public void onImprovement(int[] moves) {
+        for(int i = 0; i < moves.length; i++) {
+            int move = moves[i];
+            if(move >= scores.length)
+                scores = Arrays.copyOf(scores, Math.max(scores.length * 2, move + 1));
+            //saturates instead of overflowing on very long searches
+            scores[move] = (int) Math.min(Integer.MAX_VALUE, (long) scores[move] + i + 1);
+        }
+    }
+}
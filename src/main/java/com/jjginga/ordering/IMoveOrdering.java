@@ -0,0 +1,30 @@
+package com.jjginga.ordering;
+
+import com.jjginga.state.IState;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Defines the order in which the depth-first techniques try the moves of a state. The first
+ * moves tried decide where the first dive goes, and so how soon a solution or a good incumbent
+ * is found. An ordering may learn from the improvements found by the search it belongs to, so
+ * each search creates its own.
+ */
+public interface IMoveOrdering {
+
+    /**
+     * Returns the valid moves of a state in the order they should be tried. The state may be
+     * modified while ranking its moves, but is restored before returning.
+     *
+     * @param state The state whose moves are ordered.
+     * @return An iterator over the encoded valid moves, with the same contract as IState.moves().
+     */
+    public PrimitiveIterator.OfInt order(IState state);
+
+    /**
+     * Informs the ordering that the search reached a state improving on the best one so far.
+     *
+     * @param moves The encoded moves leading from the initial state to the improving state.
+     */
+    public void onImprovement(int[] moves);
+}
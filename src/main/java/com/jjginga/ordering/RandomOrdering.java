@@ -0,0 +1,28 @@
+package com.jjginga.ordering;
+
+import com.jjginga.state.IState;
+
+import java.util.SplittableRandom;
+
+/**
+ * Tries the moves in a random order drawn from a seed, so that a search can be repeated exactly
+ * and several searches with different seeds dive into different parts of the search space.
+ */
+public class RandomOrdering extends AbstractMoveOrdering {
+
+    private final SplittableRandom random;//draws the ranks of the moves
+
+    /**
+     * Constructs a random ordering.
+     *
+     * @param seed The seed of the order, the same seed giving the same order on the same search.
+     */
+    public RandomOrdering(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    protected int rank(IState state, int move) {
+        return random.nextInt();
+    }
+}
@@ -0,0 +1,19 @@
+package com.jjginga.ordering;
+
+import com.jjginga.state.IState;
+
+/**
+ * Tries first the moves removing the most borders, so that the first dive is greedy instead of
+ * following the grid and descending into long chains of moves that barely improve. Every move
+ * of a state is applied and undone once to measure its reduction.
+ */
+public class ReductionOrdering extends AbstractMoveOrdering {
+
+    @Override
+    protected int rank(IState state, int move) {
+        state.apply(move);
+        int borders = state.getObjectiveValue();
+        state.undo(move);
+        return borders;
+    }
+}
@@ -0,0 +1,144 @@
+package com.jjginga.result;
+
+import com.jjginga.state.IState;
+
+import java.util.Arrays;
+
+/**
+ * Records, for every state expanded by a search, the move that produced it, so that the
+ * sequence of moves leading to any of them can be reconstructed at the end of the search.
+ *
+ * Moves are their own inverse, so the parent of a state is obtained by undoing the recorded
+ * move on it and no explicit parent link is stored: each state costs one fingerprint and one
+ * packed move in an open-addressing table (a little over 12 bytes at the maximum load),
+ * instead of keeping the parent states alive.
+ */
+public class MoveTrail {
+
+    //number of slots of a new trail
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    //maximum fraction of occupied slots before the table grows
+    private static final double MAX_LOAD = 0.6;
+    //value returned by moveOf when the state was never recorded
+    private static final int ABSENT = Integer.MIN_VALUE;
+
+    private long[] fingerprints;//fingerprint of each slot, 0 when empty
+    private int[] moves;//move that produced the state of each slot
+    private int shift;//64 - log2 of the number of slots
+    private int size;//number of states stored in the slots
+    private int zeroMove = ABSENT;//move of the state whose fingerprint is 0, if recorded
+
+    /**
+     * Constructs an empty trail.
+     */
+    public MoveTrail() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Records the move that produced a state. Only the first move recorded for a state is
+     * kept, which is the one of its first expansion.
+     *
+     * @param fingerprint The fingerprint of the state.
+     * @param move The encoded move that produced it, IState.NO_MOVE for the initial state.
+     */
+    public void record(long fingerprint, int move) {
+        if(fingerprint == 0) {
+            if(zeroMove == ABSENT)
+                zeroMove = move;
+            return;
+        }
+
+        int index = indexOf(fingerprint);
+        while(fingerprints[index] != 0) {
+            if(fingerprints[index] == fingerprint)
+                return;
+            index = (index + 1) & (fingerprints.length - 1);
+        }
+        fingerprints[index] = fingerprint;
+        moves[index] = move;
+
+        if(++size > fingerprints.length * MAX_LOAD)
+            grow();
+    }
+
+    /**
+     * Reconstructs the moves leading from the initial state to the given state, by undoing
+     * the recorded moves one by one on a copy of it until the initial state is reached.
+     * Every state on the way must have been recorded.
+     *
+     * @param state The state reached by the search.
+     * @return The encoded moves, in the order they must be applied to the initial state.
+     */
+    public int[] reconstruct(IState state) {
+        IState current = state.copy();
+        int[] path = new int[16];
+        int length = 0;
+
+        int move;
+        while((move = moveOf(current.getFingerprint())) != IState.NO_MOVE) {
+            if(move == ABSENT)
+                throw new IllegalStateException("State not recorded in the trail");
+            if(length == path.length)
+                path = Arrays.copyOf(path, length * 2);
+            path[length++] = move;
+            current.undo(move);
+        }
+
+        //the moves were collected from the last to the first
+        int[] ordered = new int[length];
+        for(int i = 0; i < length; i++)
+            ordered[i] = path[length - 1 - i];
+        return ordered;
+    }
+
+    /**
+     * Retrieves the number of recorded states.
+     *
+     * @return The size of the trail.
+     */
+    public int size() {
+        return size + (zeroMove != ABSENT ? 1 : 0);
+    }
+
+    private int moveOf(long fingerprint) {
+        if(fingerprint == 0)
+            return zeroMove;
+
+        int index = indexOf(fingerprint);
+        while(fingerprints[index] != 0) {
+            if(fingerprints[index] == fingerprint)
+                return moves[index];
+            index = (index + 1) & (fingerprints.length - 1);
+        }
+        return ABSENT;
+    }
+
+    private int indexOf(long fingerprint) {
+        return (int) ((fingerprint * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void allocate(int capacity) {
+        fingerprints = new long[capacity];
+        moves = new int[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * Doubles the number of slots, reinserting every recorded state.
+     */
+    private void grow() {
+        long[] oldFingerprints = fingerprints;
+        int[] oldMoves = moves;
+        allocate(oldFingerprints.length << 1);
+        for(int i = 0; i < oldFingerprints.length; i++) {
+            if(oldFingerprints[i] == 0)
+                continue;
+            int index = indexOf(oldFingerprints[i]);
+            while(fingerprints[index] != 0)
+                index = (index + 1) & (fingerprints.length - 1);
+            fingerprints[index] = oldFingerprints[i];
+            moves[index] = oldMoves[i];
+        }
+    }
+}
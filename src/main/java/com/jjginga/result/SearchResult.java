@@ -1,11 +1,15 @@
 package com.jjginga.result;
 
+import com.jjginga.metrics.MetricsSnapshot;
 import com.jjginga.state.IState;
 
+import java.util.StringJoiner;
+
 /**
  * Represents the result of a search operation, encapsulating the final state,
  * whether a solution was found, the depth reached, the number of generated states,
- * and the execution time of the search.
+ * and the execution time of the search. When a solution is found the result also holds
+ * the encoded moves that lead to it from the initial state.
  */
 public class SearchResult {
     private IState state;//final state reached by the search
@@ -14,6 +18,11 @@ public class SearchResult {
     int generatedStates;//total number of generated states
 
     long executionTime;//total execution time
+    private int[] moves;//encoded moves from the initial state to the final one, if known
+    private double falsePositiveRate;//risk that the duplicate detection wrongly skipped a state
+    private MetricsSnapshot metrics;//final metrics of the search
+    private String technique;//name of the technique that produced the result
+    private boolean optimal;//whether the final state was proven to have the fewest borders reachable
 
     /**
      * Constructs a SearchResult with the specified properties.
@@ -39,6 +48,15 @@ public class SearchResult {
         this.executionTime = executionTime;
     }
 
+    /**
+     * Returns the execution time of the search.
+     *
+     * @return The execution time in nanoseconds.
+     */
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
     /**
      * Returns the final state reached by the search.
      *
@@ -57,14 +75,138 @@ public class SearchResult {
         this.state = state;
     }
 
+    /**
+     * Returns the number of states generated during the search.
+     *
+     * @return The number of generated states.
+     */
+    public int getGeneratedStates() {
+        return generatedStates;
+    }
+
+    /**
+     * Returns the moves that lead from the initial state to the final state, in the order they
+     * are applied, each encoded as described by the state.
+     *
+     * @return The encoded moves, or null if the path is not known.
+     */
+    public int[] getMoves() {
+        return moves;
+    }
+
+    /**
+     * Sets the moves that lead from the initial state to the final state.
+     *
+     * @param moves The encoded moves, in the order they are applied.
+     */
+    public void setMoves(int[] moves) {
+        this.moves = moves;
+    }
+
+    /**
+     * Returns the estimated probability that the duplicate detection of the search wrongly
+     * reported a new state as visited, when it used a probabilistic visited set.
+     *
+     * @return The false positive probability, 0 if duplicate detection was exact.
+     */
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * Sets the false positive probability of the duplicate detection of the search.
+     *
+     * @param falsePositiveRate The false positive probability.
+     */
+    public void setFalsePositiveRate(double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Returns the metrics of the search when it ended.
+     *
+     * @return The final metrics, or null if they were not collected.
+     */
+    public MetricsSnapshot getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics of the search when it ended.
+     *
+     * @param metrics The final metrics.
+     */
+    public void setMetrics(MetricsSnapshot metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the name of the technique that produced the result.
+     *
+     * @return The name of the technique, or null if it is not known.
+     */
+    public String getTechnique() {
+        return technique;
+    }
+
+    /**
+     * Sets the name of the technique that produced the result.
+     *
+     * @param technique The name of the technique.
+     */
+    public void setTechnique(String technique) {
+        this.technique = technique;
+    }
+
+    /**
+     * Indicates whether the search found a state satisfying the objective.
+     *
+     * @return True if a solution was found.
+     */
+    public boolean isSolutionFound() {
+        return solutionFound;
+    }
+
+    /**
+     * Indicates whether the final state was proven to have the fewest borders reachable from the
+     * initial state, which only optimisers such as BranchAndBound prove.
+     *
+     * @return True if the final state is a proven optimum.
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * Sets whether the final state was proven to have the fewest borders reachable.
+     *
+     * @param optimal True if the final state is a proven optimum.
+     */
+    public void setOptimal(boolean optimal) {
+        this.optimal = optimal;
+    }
+
     /**
      * Returns a string representation of the search result, detailing the depth reached,
-     * the number of generated states, and the execution time in seconds.
+     * the number of generated states, the execution time in seconds, the false positive risk of
+     * the duplicate detection when it was probabilistic, whether the final state is a proven optimum
+     * and, when known, the moves leading to the final state.
      *
      * @return A formatted string representation of the search result.
      */
     @Override
     public String toString() {
-        return String.format("depth = %d, generatedStates = %d, executionTime = %.4f s", depth, generatedStates, (executionTime/1_000_000_000.0));
+        String summary = String.format("depth = %d, generatedStates = %d, executionTime = %.4f s", depth, generatedStates, (executionTime/1_000_000_000.0));
+        if(falsePositiveRate > 0)
+            summary += String.format(", falsePositiveRate = %.2e", falsePositiveRate);
+        if(optimal)
+            summary += ", optimal = true";
+        if(moves == null || state == null)
+            return summary;
+
+        StringJoiner path = new StringJoiner(", ", ", moves = [", "]");
+        for(int move : moves)
+            path.add(state.describeMove(move));
+        return summary + path;
     }
 }
@@ -0,0 +1,130 @@
+package com.jjginga.searchtechnique;
+
+import com.jjginga.heuristic.BorderReductionHeuristic;
+import com.jjginga.heuristic.IHeuristic;
+import com.jjginga.result.MoveTrail;
+import com.jjginga.result.SearchResult;
+import com.jjginga.state.IState;
+import com.jjginga.visited.IVisitedSet;
+
+import java.util.*;
+
+/**
+ * Implements the A* search algorithm, extending AbstractSearchTechnique. States are expanded
+ * in order of f = g + h, where g is the depth of the state and h the heuristic estimate of the
+ * moves still needed. With an admissible and consistent heuristic the first state meeting the
+ * objective that is expanded has minimum depth, like with BFS, while states that cannot lead
+ * to the objective quickly are left unexpanded.
+ */
+public class AStar extends AbstractSearchTechnique {
+
+    private final IHeuristic heuristic;//estimates the moves still needed from a state
+
+    /**
+     * Constructs an A* search using the border reduction heuristic.
+     *
+     * @param initialState The state from which to start the search.
+     * @param objective The search objective.
+     */
+    public AStar(IState initialState, int objective) {
+        this(initialState, objective, new BorderReductionHeuristic());
+    }
+
+    /**
+     * Constructs an A* search with a given heuristic.
+     *
+     * @param initialState The state from which to start the search.
+     * @param objective The search objective.
+     * @param heuristic The heuristic guiding the search.
+     */
+    public AStar(IState initialState, int objective, IHeuristic heuristic) {
+        super(initialState, objective);
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Executes the A* search. The frontier is a priority queue ordered by f, ties broken in
+     * favour of the state with the lower objective value. States are closed when they are
+     * expanded, so a state that was queued more than once is only expanded the first time,
+     * through its shallowest path, which is the one recorded to rebuild the path to the solution.
+     *
+     * @param initialState The initial state from where the search starts.
+     * @param objective The goal to achieve, such as a maximum number of borders.
+     * @return A SearchResult object encapsulating the outcome of the search.
+     */
+    @Override
+    protected SearchResult performSearch(IState initialState, int objective) {
+        Comparator<IState> byEstimatedCost = Comparator
+                .comparingInt((IState state) -> state.getDepth() + heuristic.estimate(state, objective))
+                .thenComparingInt(IState::getObjectiveValue);
+        Queue<IState> open = new PriorityQueue<>(byEstimatedCost);
+        IVisitedSet closed = createVisitedSet();
+        MoveTrail trail = new MoveTrail();
+
+        //count of all states that have been generated
+        int generatedStates = 0;
+        //keeps track of the maximum depth of the search tree
+        int maxDepth = 0;
+
+        if(heuristic.estimate(initialState, objective) != Integer.MAX_VALUE)
+            open.add(initialState);
+
+        while(!open.isEmpty()) {
+            IState currentState = open.poll();
+
+            //a shallower copy of this state was already expanded
+            if(!closed.add(fingerprintOf(currentState))) {
+                metrics.duplicate();
+                continue;
+            }
+            maxDepth = Math.max(currentState.getDepth(), maxDepth);
+            trail.record(currentState.getFingerprint(), currentState.getLastMove());
+
+            if(isImprovement(currentState))
+                improve(currentState, trail.reconstruct(currentState));
+
+            //interruption check for externally managed timeouts, cancellations or the time limit.
+            if(shouldStop()) {
+                //the search stops and reports the best state found so far
+                return stop(generatedStates, maxDepth);
+            }
+
+            //check if solution is found
+            if(currentState.getObjectiveValue() <= objective) {
+                //found a solution meeting the objective.
+                return solutionResult(currentState, generatedStates, trail.reconstruct(currentState));
+            }
+
+            //generate and add to the queue the successors that were not expanded yet
+            List<IState> successors = generateSuccessors(currentState);
+            generatedStates += successors.size();
+            for(IState successor : successors) {
+                if(closed.contains(fingerprintOf(successor)))
+                    metrics.duplicate();
+                else if(heuristic.estimate(successor, objective) != Integer.MAX_VALUE && !isProvenUnreachable(successor, objective))
+                    open.add(successor);
+            }
+            metrics.frontier(open.size());
+            metrics.visited(closed.size());
+        }
+
+        //search space was fully explored without finding a solution.
+        return new SearchResult(null, false, generatedStates, maxDepth);
+    }
+
+    @Override
+    protected boolean isDepthOptimal() {
+        return true;
+    }
+
+    @Override
+    protected boolean isExhaustive() {
+        //states estimated out of reach are never expanded
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "A* Search";
+    }
+}
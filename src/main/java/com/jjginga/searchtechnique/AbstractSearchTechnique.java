@@ -1,18 +1,67 @@
 package com.jjginga.searchtechnique;
 
+import com.jjginga.metrics.ISearchListener;
+import com.jjginga.metrics.MetricsSnapshot;
+import com.jjginga.metrics.SearchMetrics;
+import com.jjginga.ordering.GridOrdering;
+import com.jjginga.ordering.IMoveOrdering;
 import com.jjginga.result.SearchResult;
 import com.jjginga.state.IState;
+import com.jjginga.visited.FingerprintSet;
+import com.jjginga.visited.IVisitedSet;
+import com.jjginga.visited.TranspositionStore;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Abstract class defining the structure and essential operations for search techniques.
  * It encapsulates common attributes such as the initial state, objective, execution time,
  * and mechanisms for asynchronous execution control like CountDownLatch.
+ *
+ * Every search also updates a set of metrics (see SearchMetrics) as it runs. Listeners registered
+ * with addListener receive samples of them periodically, from a shared sampling thread, and the
+ * final values once the search ends; the final values are attached to the SearchResult too.
+ *
+ * Objectives below the lower bound on the objective value reachable from the initial state (see
+ * IState.getReachableLowerBound) fail at once, without searching. The bound holds for every
+ * reachable state, so no subtree can be pruned by it that the initial state was not. Optimisers,
+ * which search for the optimum whatever the objective, override answerWithoutSearching.
+ *
+ * Searches are anytime: the state with the fewest borders reached so far is tracked together
+ * with the moves leading to it, each improvement is published to the listeners, and a search
+ * that is interrupted or runs out of its time limit stops at its next check and reports that
+ * best state instead of nothing.
+ *
+ * A search may share a TranspositionStore with other searches and runs. Before searching, it
+ * looks up the initial state: an instance already solved is answered by following the stored
+ * solution, and one already proven out of reach is answered at once. Searches can also skip
+ * the states proven unable to reach the objective. Once done, the search records the path of its
+ * solution, or the lower bound proven by exploring everything reachable from the initial state.
+ *
+ * The depth-first techniques try the moves of each state in the order given by a move ordering
+ * (see IMoveOrdering), grid-scan order unless another one is set with setMoveOrdering.
  */
 public abstract class AbstractSearchTechnique implements ISearchTechnique{
 
+    //time between two samples of the metrics when none is given
+    public static final long DEFAULT_SAMPLING_INTERVAL_MILLIS = 1000;
+
+    //thread sampling the metrics of all the running searches, which never keeps the JVM alive
+    private static final ScheduledExecutorService SAMPLER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-metrics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     //total time taken to perform the search in nanoseconds.
     protected long executionTime;
     //starting state
@@ -20,11 +69,44 @@ public abstract class AbstractSearchTechnique implements ISearchTechnique{
     //objective the search aims to achive
     private int objective;
 
-    //holds the result in case a solution isn't found
+    //holds the result reported when the search is stopped before finding a solution
     protected SearchResult notFoundResult;
-    //synchronization "tool" that allows that the main thread waits for the current state to be
-    // captured before continuing, allowing that the number
+    //counted down once the search returned, so that whoever cancelled it can wait for its result
     protected final CountDownLatch latch = new CountDownLatch(1);
+    //time the search may run for, in nanoseconds, 0 for no limit
+    private long timeLimitNanos;
+    //System.nanoTime() at which the search must stop, when there is a time limit
+    private long deadline;
+    //number of calls to shouldStop since the clock was last read
+    private int stopChecks;
+    //set once the search ran out of time, so that every later check stops it too
+    private boolean expired;
+    //state with the fewest borders reached so far and the moves leading to it
+    private IState best;
+    private int[] bestMoves;
+    //creates the set used to detect already visited states
+    private Supplier<IVisitedSet> visitedSetFactory = FingerprintSet::new;
+    //visited set created last, whose false positive risk is reported with the result
+    private IVisitedSet visitedSet;
+    //creates the ordering of the moves tried by depth-first searches, one per search
+    private Supplier<IMoveOrdering> moveOrderingFactory = GridOrdering::new;
+    //ordering of the running search, informed of its improvements
+    private IMoveOrdering moveOrdering;
+    //whether duplicates are detected on the canonical form of the states
+    private boolean canonicalDeduplication;
+    //facts proven by previous searches, null when there is no store
+    private TranspositionStore transpositionStore;
+    //smallest lower bound of the states skipped because the store proved them out of reach
+    private int skippedBound;
+
+    //counters updated by the search as it runs
+    protected final SearchMetrics metrics = new SearchMetrics();
+    //receive the samples of the metrics
+    private final List<ISearchListener> listeners = new CopyOnWriteArrayList<>();
+    //time between two samples of the metrics
+    private long samplingIntervalMillis = DEFAULT_SAMPLING_INTERVAL_MILLIS;
+    //whether the time spent generating successors is measured, only when someone listens
+    private boolean timing;
 
     /**
      * Constructs an instance of a search technique with a specified initial state and objective.
@@ -66,25 +148,335 @@ public abstract class AbstractSearchTechnique implements ISearchTechnique{
      */
     @Override
     public SearchResult search(IState initialState, int objective) {
+        try {
+            return timedSearch(initialState, objective);
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    /**
+     * Runs the search, measuring its execution time and collecting its metrics.
+     * @param initialState The initial state from where the search starts.
+     * @param objective The search objective.
+     * @return SearchResult object encapsulating the outcome of the search.
+     */
+    private SearchResult timedSearch(IState initialState, int objective) {
+        timing = !listeners.isEmpty();
+        best = null;
+        bestMoves = null;
+        notFoundResult = null;
+        skippedBound = Integer.MAX_VALUE;
+        moveOrdering = moveOrderingFactory.get();
+        expired = false;
+        deadline = System.nanoTime() + timeLimitNanos;
+        metrics.start(timing);
+        ScheduledFuture<?> sampling = timing
+                ? SAMPLER.scheduleAtFixedRate(this::sample, samplingIntervalMillis, samplingIntervalMillis, TimeUnit.MILLISECONDS)
+                : null;
+
         long startTime = System.nanoTime();
-        SearchResult result = performSearch(initialState, objective);
+        SearchResult result;
+        try {
+            result = answerWithoutSearching(initialState, objective);
+            if(result == null) {
+                result = performSearch(initialState, objective);
+                if(transpositionStore != null)
+                    remember(initialState, objective, result);
+            }
+        } finally {
+            metrics.stop();
+            if(sampling != null)
+                sampling.cancel(false);
+        }
         this.executionTime = System.nanoTime() - startTime;
 
+        MetricsSnapshot finalMetrics = metrics.snapshot();
+        result.setMetrics(finalMetrics);
+        for(ISearchListener listener : listeners)
+            listener.onFinish(toString(), finalMetrics);
+
         result.setExecutionTime(this.getExecutionTime());
+        result.setTechnique(toString());
+        if(visitedSet != null)
+            result.setFalsePositiveRate(visitedSet.falsePositiveRate());
+
+        return result;
+    }
+
+
+    /**
+     * Answers a search without exploring anything, when no arrangement of the initial state
+     * reaches the objective or when the store already answers it.
+     * @param initialState The initial state of the search.
+     * @param objective The search objective.
+     * @return The result of the search, null if it must be searched.
+     */
+    protected SearchResult answerWithoutSearching(IState initialState, int objective) {
+        if(initialState.getReachableLowerBound() > objective)
+            return new SearchResult(null, false, 0, initialState.getDepth());
+        return transpositionStore != null ? storedResult(initialState, objective) : null;
+    }
+
+    /**
+     * Answers a search from the store, when the initial state was already solved for the
+     * objective or proven unable to reach it.
+     * @param initialState The initial state of the search.
+     * @param objective The search objective.
+     * @return The result of the search, null if the store does not answer it.
+     */
+    private SearchResult storedResult(IState initialState, int objective) {
+        if(isProvenUnreachable(initialState, objective))
+            return new SearchResult(null, false, 0, initialState.getDepth());
+
+        int[] moves = storedSolution(initialState, objective);
+        if(moves == null)
+            return null;
+        IState solution = replay(initialState, moves);
+        improve(solution, moves);
+        return solutionResult(solution, 0, moves);
+    }
+
+    /**
+     * Records in the store what a search proved: every state on the path of its solution can
+     * reach it in the remaining moves, the fewest possible for a depth-optimal search, and an
+     * initial state from which everything reachable was explored cannot do better than the best
+     * state reached. The optimum proven by an optimiser is recorded as such a bound too.
+     * @param initialState The initial state of the search.
+     * @param objective The search objective.
+     * @param result The result of the search.
+     */
+    private void remember(IState initialState, int objective, SearchResult result) {
+        boolean exact = visitedSet == null || visitedSet.falsePositiveRate() == 0;
+        if((result.isSolutionFound() || result.isOptimal()) && result.getMoves() != null) {
+            int[] moves = result.getMoves();
+            //a stopped search reports the best state reached, which may not be the closest
+            int exactObjective = exact && isDepthOptimal() && notFoundResult == null ? objective : TranspositionStore.UNKNOWN;
+            int borders = result.getState().getObjectiveValue();
+            IState state = initialState.copy();
+            for(int i = 0; i <= moves.length; i++) {
+                transpositionStore.recordSolution(storeKey(state), borders, moves.length - i,
+                        i < moves.length ? moves[i] : IState.NO_MOVE, exactObjective);
+                if(i < moves.length)
+                    state.apply(moves[i]);
+            }
+        } else if(!result.isSolutionFound() && notFoundResult == null && exact && isComplete()) {
+            int lowerBound = objective + 1;
+            //when every reachable state was seen the best one is the fewest borders reachable
+            if(isExhaustive() && best != null)
+                lowerBound = Math.max(lowerBound, Math.min(best.getObjectiveValue(), skippedBound));
+            transpositionStore.recordLowerBound(storeKey(initialState), lowerBound);
+        }
+        if(result.isOptimal())
+            transpositionStore.recordLowerBound(storeKey(initialState), result.getState().getObjectiveValue());
+    }
+
+    /**
+     * Checks whether the store proved that a state cannot reach the objective, in which case
+     * the search can skip everything below it.
+     * @param state The state reached.
+     * @param objective The search objective.
+     * @return True if the state can be skipped.
+     */
+    protected boolean isProvenUnreachable(IState state, int objective) {
+        if(transpositionStore == null)
+            return false;
+        TranspositionStore.Entry entry = transpositionStore.lookup(storeKey(state));
+        if(entry == null || entry.getLowerBound() <= objective)
+            return false;
+        skippedBound = Math.min(skippedBound, entry.getLowerBound());
+        return true;
+    }
+
+    /**
+     * Looks up the lower bound the store proved on the borders reachable from a state.
+     * @param state The state.
+     * @return The lower bound, TranspositionStore.UNKNOWN if there is no store or none is known.
+     */
+    protected int storedLowerBound(IState state) {
+        if(transpositionStore == null)
+            return TranspositionStore.UNKNOWN;
+        TranspositionStore.Entry entry = transpositionStore.lookup(storeKey(state));
+        return entry == null ? TranspositionStore.UNKNOWN : entry.getLowerBound();
+    }
+
+    /**
+     * Follows a solution recorded in the store from a state, entry by entry. Depth-optimal
+     * searches only accept solutions proven to be the shortest for the same objective. The
+     * path is checked as it is followed, so an entry lost or overwritten only makes it fail.
+     * @param state The state reached.
+     * @param objective The search objective.
+     * @return The moves leading from the state to a state meeting the objective, null if none is stored.
+     */
+    protected int[] storedSolution(IState state, int objective) {
+        if(transpositionStore == null)
+            return null;
+        TranspositionStore.Entry entry = transpositionStore.lookup(storeKey(state));
+        if(entry == null || !entry.hasSolution() || entry.getBorders() > objective)
+            return null;
+        if(isDepthOptimal() && entry.getExactObjective() != objective)
+            return null;
+
+        IState current = state.copy();
+        int[] moves = new int[entry.getDistance()];
+        int steps = 0;
+        while(current.getObjectiveValue() > objective) {
+            if(entry == null || !entry.hasSolution() || steps == moves.length)
+                return null;
+            moves[steps++] = entry.getNextMove();
+            current.apply(entry.getNextMove());
+            entry = transpositionStore.lookup(storeKey(current));
+        }
+        return Arrays.copyOf(moves, steps);
+    }
+
+    /**
+     * Applies moves to a copy of a state.
+     * @param state The state, which is not modified.
+     * @param moves The encoded moves.
+     * @return The state reached.
+     */
+    protected static IState replay(IState state, int[] moves) {
+        IState replayed = state.copy();
+        for(int move : moves)
+            replayed.apply(move);
+        return replayed;
+    }
+
+    /**
+     * Computes the key of a state in the store, which tells apart maps of different shapes.
+     * @param state The state.
+     * @return The key of the state.
+     */
+    private static long storeKey(IState state) {
+        return state.getFingerprint() ^ state.getLayoutFingerprint();
+    }
+
+    /**
+     * Tells whether the solutions found by the technique are as shallow as possible, so that
+     * the store can record their length as exact.
+     * @return True for depth-optimal techniques.
+     */
+    protected boolean isDepthOptimal() {
+        return false;
+    }
+
+    /**
+     * Tells whether the technique always finds a solution when one exists, so that failing to
+     * find one proves the objective out of reach.
+     * @return True for complete techniques.
+     */
+    protected boolean isComplete() {
+        return true;
+    }
+
+    /**
+     * Tells whether the technique reaches every state reachable from the initial one before
+     * failing, rather than skipping the ones it estimates out of reach, so that the best state
+     * reached is the fewest borders reachable.
+     * @return True for exhaustive techniques.
+     */
+    protected boolean isExhaustive() {
+        return isComplete();
+    }
+
+    /**
+     * Checks whether the search must stop, because its thread was interrupted or its time limit
+     * expired. Searches call it once per state, so the clock is only read every few calls.
+     * @return True if the search must stop.
+     */
+    protected boolean shouldStop() {
+        if(Thread.currentThread().isInterrupted() || expired)
+            return true;
+        if(timeLimitNanos != 0 && (++stopChecks & 0xFF) == 0 && System.nanoTime() - deadline >= 0)
+            expired = true;
+        return expired;
+    }
+
+    /**
+     * Computes the time left before the time limit expires, for searches that wait instead of
+     * checking shouldStop regularly.
+     * @return The time left in nanoseconds, Long.MAX_VALUE if there is no time limit.
+     */
+    protected long remainingTimeNanos() {
+        return timeLimitNanos == 0 ? Long.MAX_VALUE : Math.max(0, deadline - System.nanoTime());
+    }
+
+    /**
+     * Stops the search, capturing the best state reached so far and the moves leading to it in
+     * notFoundResult, which the search then returns.
+     * @param generatedStates The number of states generated by the search up to this point.
+     * @param depth The depth reached in the search space up to this point.
+     * @return The captured result.
+     */
+    protected SearchResult stop(int generatedStates, int depth) {
+        this.notFoundResult = new SearchResult(best, best != null && best.getObjectiveValue() <= objective, generatedStates, depth);
+        notFoundResult.setMoves(bestMoves);
+        if(visitedSet != null)
+            notFoundResult.setFalsePositiveRate(visitedSet.falsePositiveRate());
+        return notFoundResult;
+    }
+
+    /**
+     * Checks whether a state has fewer borders than the best state reached so far. Searches
+     * call it on every state they reach, and only build the path when it returns true.
+     * @param state The state reached.
+     * @return True if the state improves on the best one.
+     */
+    protected boolean isImprovement(IState state) {
+        return best == null || state.getObjectiveValue() < best.getObjectiveValue();
+    }
+
+    /**
+     * Records a new best state, which must be an improvement, and publishes it to the listeners.
+     * @param state The state reached, which is copied.
+     * @param moves The encoded moves leading from the initial state to it.
+     */
+    protected void improve(IState state, int[] moves) {
+        best = state.copy();
+        bestMoves = moves;
+        moveOrdering.onImprovement(moves);
+        for(ISearchListener listener : listeners)
+            listener.onImprovement(toString(), best, moves);
+    }
 
+    /**
+     * Builds the result of a search that reached a state meeting the objective.
+     * @param solution The state meeting the objective.
+     * @param generatedStates The number of states generated by the search.
+     * @param moves The encoded moves leading from the initial state to the solution.
+     * @return The SearchResult reporting the solution and the path to it.
+     */
+    protected SearchResult solutionResult(IState solution, int generatedStates, int[] moves) {
+        SearchResult result = new SearchResult(solution, true, generatedStates, solution.getDepth());
+        result.setMoves(moves);
         return result;
     }
 
+    /**
+     * Delivers a sample of the metrics to the listeners.
+     */
+    private void sample() {
+        MetricsSnapshot snapshot = metrics.snapshot();
+        for(ISearchListener listener : listeners)
+            listener.onSample(toString(), snapshot);
+    }
 
     /**
-     * Captures the current state of the search when it is interrupted or unable to find a solution.
-     * This method updates the notFoundResult attribute with the latest state.
-     * @param state The current state at the time of interruption.
-     * @param generatedStates The number of states generated by the search up to the point of interruption.
-     * @param depth The depth reached in the search space at the time of interruption.
+     * Starts measuring the time spent generating successors, when it is measured.
+     * @return The start time to give to stopGenerationTiming.
      */
-    protected void captureCurrentState(IState state, int generatedStates, int depth) {
-        this.notFoundResult = new SearchResult(state, false, generatedStates, depth);
+    protected long startGenerationTiming() {
+        return timing ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Stops measuring the time spent generating successors, adding it to the metrics.
+     * @param start The time returned by startGenerationTiming.
+     */
+    protected void stopGenerationTiming(long start) {
+        if(timing)
+            metrics.generationTime(System.nanoTime() - start);
     }
 
     /**
@@ -102,12 +494,127 @@ public abstract class AbstractSearchTechnique implements ISearchTechnique{
     /**
      * Generates successors for a given state. This is a utility method that delegates to the IState's
      * method for generating successors, providing a common interface for all search techniques.
+     * The expansion is recorded in the metrics.
      * @param currentState The state for which to generate successors.
      * @return A list of successor states.
      */
     protected List<IState> generateSuccessors(IState currentState) {
-        return currentState.generateSuccessors();
+        long start = startGenerationTiming();
+        List<IState> successors = currentState.generateSuccessors();
+        stopGenerationTiming(start);
 
+        metrics.expanded();
+        metrics.generated(successors.size());
+        return successors;
+    }
+
+    /**
+     * Returns the valid moves of a state in the order given by the move ordering of the search.
+     * The time spent ordering them is measured as generation time.
+     * @param state The state whose moves are tried.
+     * @return An iterator over the encoded valid moves.
+     */
+    protected PrimitiveIterator.OfInt orderedMoves(IState state) {
+        long start = startGenerationTiming();
+        PrimitiveIterator.OfInt moves = moveOrdering.order(state);
+        stopGenerationTiming(start);
+        return moves;
+    }
+
+    /**
+     * Creates an empty set to keep track of visited states, using the configured factory.
+     * The false positive risk of the set is reported with the result of the search.
+     * @return A new visited set.
+     */
+    protected IVisitedSet createVisitedSet() {
+        visitedSet = visitedSetFactory.get();
+        return visitedSet;
+    }
+
+    /**
+     * Changes how visited sets are created, for instance to keep them off the heap
+     * with OffHeapFingerprintSet, or to trade completeness for memory with BitStateSet.
+     * @param visitedSetFactory The factory of visited sets.
+     */
+    public void setVisitedSetFactory(Supplier<IVisitedSet> visitedSetFactory) {
+        this.visitedSetFactory = visitedSetFactory;
+    }
+
+    /**
+     * Changes the order in which the depth-first techniques try the moves of each state, for
+     * instance to try the largest border reductions first with ReductionOrdering. A new ordering
+     * is created for each search, so that what it learns and its random draws start afresh.
+     * @param moveOrderingFactory The factory of move orderings.
+     */
+    public void setMoveOrdering(Supplier<IMoveOrdering> moveOrderingFactory) {
+        this.moveOrderingFactory = moveOrderingFactory;
+    }
+
+    /**
+     * Makes the search detect duplicates on the canonical form of the states, so that states
+     * differing only by a symmetry or a relabelling are explored once. Computing the canonical
+     * form costs more than the plain fingerprint, but can shrink the explored space several-fold.
+     * @param canonicalDeduplication True to deduplicate on the canonical form.
+     */
+    public void setCanonicalDeduplication(boolean canonicalDeduplication) {
+        this.canonicalDeduplication = canonicalDeduplication;
+    }
+
+    /**
+     * Returns the fingerprint used to detect duplicates of a state, which is its canonical
+     * fingerprint when canonical deduplication is enabled.
+     * @param state The state.
+     * @return The fingerprint identifying the state for duplicate detection.
+     */
+    protected long fingerprintOf(IState state) {
+        return canonicalDeduplication ? state.getCanonicalFingerprint() : state.getFingerprint();
+    }
+
+    /**
+     * Makes the search use and feed a store of the facts proven by previous searches, which
+     * may be shared with other searches and kept across runs.
+     * @param transpositionStore The store, null to stop using one.
+     */
+    public void setTranspositionStore(TranspositionStore transpositionStore) {
+        this.transpositionStore = transpositionStore;
+    }
+
+    /**
+     * Registers a listener receiving the metrics of the search, periodically while it runs and
+     * once when it ends. Use JfrSearchListener to emit them as JFR events.
+     * @param listener The listener.
+     */
+    public void addListener(ISearchListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Limits the time the search may run for. Once it is over, the search stops at its next
+     * check and reports the best state reached so far with the moves leading to it.
+     * @param timeLimitMillis The time limit, in milliseconds, 0 for no limit.
+     */
+    public void setTimeLimit(long timeLimitMillis) {
+        if(timeLimitMillis < 0)
+            throw new IllegalArgumentException("The time limit cannot be negative");
+        this.timeLimitNanos = TimeUnit.MILLISECONDS.toNanos(timeLimitMillis);
+    }
+
+    /**
+     * Changes the time between two samples of the metrics delivered to the listeners.
+     * @param samplingIntervalMillis The interval, in milliseconds.
+     */
+    public void setSamplingInterval(long samplingIntervalMillis) {
+        if(samplingIntervalMillis < 1)
+            throw new IllegalArgumentException("The sampling interval must be at least 1 ms");
+        this.samplingIntervalMillis = samplingIntervalMillis;
+    }
+
+    /**
+     * Takes a snapshot of the metrics of the search, which can be done while it runs.
+     * @return The current metrics.
+     */
+    public MetricsSnapshot getMetrics() {
+        return metrics.snapshot();
     }
 
     public long getExecutionTime() {
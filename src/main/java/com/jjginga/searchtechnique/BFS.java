@@ -1,7 +1,9 @@
 package com.jjginga.searchtechnique;
 
+import com.jjginga.result.MoveTrail;
 import com.jjginga.result.SearchResult;
 import com.jjginga.state.IState;
+import com.jjginga.visited.IVisitedSet;
 
 import java.util.*;
 
@@ -20,8 +22,9 @@ public class BFS extends AbstractSearchTechnique {
     /**
      * Executes the Breadth-First Search algorithm from the provided initialState towards
      * achieving the specified objective. Utilizes a queue to manage the search frontier,
-     * ensuring that states are explored in a breadth-first manner. A set is used to track
-     * visited states, avoiding redundant exploration and potential cycles.
+     * ensuring that states are explored in a breadth-first manner. A set of fingerprints is
+     * used to track visited states, avoiding redundant exploration and potential cycles, and
+     * the move that produced each expanded state is recorded to rebuild the path to the solution.
      *
      * @param initialState The initial state from where the BFS search starts.
      * @param objective The goal state or condition to achieve, such as minimizing the number of borders.
@@ -30,8 +33,9 @@ public class BFS extends AbstractSearchTechnique {
     @Override
     protected SearchResult performSearch(IState initialState, int objective) {
 
-        Queue<IState> queue = new LinkedList<>();
-        Set<IState> visited = new HashSet<>();
+        Queue<IState> queue = new ArrayDeque<>();
+        IVisitedSet visited = createVisitedSet();
+        MoveTrail trail = new MoveTrail();
 
         //count of all states that have been generated
         int generatedStates = 0;
@@ -39,40 +43,50 @@ public class BFS extends AbstractSearchTechnique {
         int maxDepth = 0;
 
         queue.add(initialState);
-        visited.add(initialState);
+        visited.add(fingerprintOf(initialState));
 
         while(!queue.isEmpty()) {
             IState currentState = queue.poll();
             maxDepth = Math.max(currentState.getDepth(), maxDepth);
+            trail.record(currentState.getFingerprint(), currentState.getLastMove());
 
-            //interruption check for externally managed timeouts or cancellations.
-            if (Thread.currentThread().isInterrupted()) {
-                //capture the current search
-                captureCurrentState(currentState, generatedStates, maxDepth);
-                latch.countDown();
+            if(isImprovement(currentState))
+                improve(currentState, trail.reconstruct(currentState));
+
+            //interruption check for externally managed timeouts, cancellations or the time limit.
+            if(shouldStop()) {
+                //the search stops and reports the best state found so far
+                return stop(generatedStates, maxDepth);
             }
 
             //check if solution is found
             if (currentState.getObjectiveValue() <= objective) {
                 //found a solution meeting the objective.
-                return new SearchResult(currentState, true, generatedStates, currentState.getDepth());
+                return solutionResult(currentState, generatedStates, trail.reconstruct(currentState));
             }
 
             //generate and add to queue all successor states
             List<IState> successors = generateSuccessors(currentState);
             generatedStates += successors.size();
             for (IState successor : successors) {
-                if (!visited.contains(successor)) {
+                if (!visited.add(fingerprintOf(successor)))
+                    metrics.duplicate();
+                else if (!isProvenUnreachable(successor, objective))
                     queue.add(successor);
-                    visited.add(successor);
-                }
             }
+            metrics.frontier(queue.size());
+            metrics.visited(visited.size());
         }
 
         //search space was fully explored without finding a solution.
         return new SearchResult(null, false, generatedStates,maxDepth);
     }
 
+    @Override
+    protected boolean isDepthOptimal() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return "Breath First Search";
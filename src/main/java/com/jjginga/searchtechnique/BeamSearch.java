@@ -0,0 +1,247 @@
+package com.jjginga.searchtechnique;
+
+import com.jjginga.result.SearchResult;
+import com.jjginga.state.IState;
+import com.jjginga.visited.FingerprintSet;
+
+import java.util.*;
+
+/**
+ * Implements Beam Search, a memory-bounded variant of Breadth-First Search. At each depth only
+ * the best K successors (the beam) are kept, ranked by their objective value and an optional
+ * tie-breaker, so the states held stay proportional to K whatever the size of the map. The search
+ * is incomplete: it may miss solutions that go through states outside the beam.
+ *
+ * The path to each state of the beam is kept as a chain of moves shared with the other states
+ * descending from the same ancestors. The moves leading to states that fell out of the beam are
+ * dropped with them, so only the ancestry of the live beam is held, a few ints per move; it grows
+ * with the depth only as long as the lineages of the beam have not merged.
+ *
+ * Duplicates are only detected against the current and the previous beam. The objective value of
+ * the beam may rise as well as fall from one depth to the next, since a move can add borders, so
+ * the search stops once the best value in the beam has not improved on the best seen so far for a
+ * given number of consecutive depths.
+ */
+public class BeamSearch extends AbstractSearchTechnique {
+
+    //number of states kept per depth when none is given
+    public static final int DEFAULT_BEAM_WIDTH = 1024;
+    //number of depths without improvement after which the search gives up when none is given
+    public static final int DEFAULT_MAX_STALL = 64;
+
+    private final int beamWidth;//number of states kept per depth
+    private int maxStall = DEFAULT_MAX_STALL;//depths without improvement before giving up
+    private Comparator<IState> ranking = Comparator.comparingInt(IState::getObjectiveValue);
+
+    /**
+     * Constructs a Beam Search with the default beam width.
+     *
+     * @param initialState The state from which to start the search.
+     * @param objective The search objective.
+     */
+    public BeamSearch(IState initialState, int objective) {
+        this(initialState, objective, DEFAULT_BEAM_WIDTH);
+    }
+
+    /**
+     * Constructs a Beam Search with a given beam width.
+     *
+     * @param initialState The state from which to start the search.
+     * @param objective The search objective.
+     * @param beamWidth The number of states kept per depth.
+     */
+    public BeamSearch(IState initialState, int objective, int beamWidth) {
+        super(initialState, objective);
+        if(beamWidth < 1)
+            throw new IllegalArgumentException("The beam width must be at least 1");
+        this.beamWidth = beamWidth;
+    }
+
+    /**
+     * Adds a tie-breaker used to rank states with the same objective value.
+     *
+     * @param tieBreaker Comparator that orders preferred states first.
+     */
+    public void setTieBreaker(Comparator<IState> tieBreaker) {
+        this.ranking = Comparator.comparingInt(IState::getObjectiveValue).thenComparing(tieBreaker);
+    }
+
+    /**
+     * Changes the number of consecutive depths without improvement after which the search gives up.
+     *
+     * @param maxStall The number of depths.
+     */
+    public void setMaxStall(int maxStall) {
+        this.maxStall = maxStall;
+    }
+
+    /**
+     * A move of the path leading to a state of the beam, linked to the move before it. States
+     * descending from the same ancestors share the moves leading to them.
+     */
+    private static final class Step {
+        final int move;//encoded move
+        final Step parent;//move before it, null for the first move
+
+        Step(int move, Step parent) {
+            this.move = move;
+            this.parent = parent;
+        }
+
+        /**
+         * Lists the moves leading from the initial state to the state reached by a step.
+         *
+         * @param step The last move, null for the initial state.
+         * @return The encoded moves, in the order they must be applied to the initial state.
+         */
+        static int[] moves(Step step) {
+            int length = 0;
+            for(Step current = step; current != null; current = current.parent)
+                length++;
+            int[] moves = new int[length];
+            for(Step current = step; current != null; current = current.parent)
+                moves[--length] = current.move;
+            return moves;
+        }
+    }
+
+    /**
+     * A state of the beam with the last move of the path leading to it.
+     */
+    private static final class Candidate {
+        final IState state;
+        final Step step;//null for the initial state
+
+        Candidate(IState state, Step step) {
+            this.state = state;
+            this.step = step;
+        }
+    }
+
+    /**
+     * Executes the Beam Search. Every state of the beam is checked against the objective, then
+     * all of their successors are offered to a bounded selection that keeps the best K of them,
+     * which becomes the beam of the next depth.
+     *
+     * @param initialState The initial state from where the search starts.
+     * @param objective The goal to achieve, such as a maximum number of borders.
+     * @return A SearchResult object encapsulating the outcome of the search.
+     */
+    @Override
+    protected SearchResult performSearch(IState initialState, int objective) {
+        List<Candidate> beam = Collections.singletonList(new Candidate(initialState, null));
+        FingerprintSet previous = new FingerprintSet();
+        previous.add(fingerprintOf(initialState));
+
+        //count of all states that have been generated
+        int generatedStates = 0;
+        //keeps track of the maximum depth of the search tree
+        int maxDepth = 0;
+        //best objective value seen so far and number of depths since it last improved
+        int best = initialState.getObjectiveValue();
+        int stall = 0;
+
+        while(!beam.isEmpty()) {
+            for(Candidate candidate : beam) {
+                IState currentState = candidate.state;
+                maxDepth = Math.max(currentState.getDepth(), maxDepth);
+
+                if(isImprovement(currentState))
+                    improve(currentState, Step.moves(candidate.step));
+
+                //interruption check for externally managed timeouts, cancellations or the time limit.
+                if(shouldStop()) {
+                    //the search stops and reports the best state found so far
+                    return stop(generatedStates, maxDepth);
+                }
+
+                //check if solution is found
+                if(currentState.getObjectiveValue() <= objective) {
+                    //found a solution meeting the objective.
+                    return solutionResult(currentState, generatedStates, Step.moves(candidate.step));
+                }
+            }
+
+            Selection selection = new Selection();
+            for(Candidate candidate : beam) {
+                List<IState> successors = generateSuccessors(candidate.state);
+                generatedStates += successors.size();
+                for(IState successor : successors)
+                    if(!previous.contains(fingerprintOf(successor)))
+                        selection.offer(successor, candidate.step);
+                    else
+                        metrics.duplicate();
+            }
+
+            beam = selection.states();
+            previous = selection.members;
+            metrics.frontier(beam.size());
+            metrics.visited(previous.size());
+
+            //after too many depths without beating the best value seen, the beam is taken to be stuck
+            int bestInBeam = beam.isEmpty() ? best : beam.get(0).state.getObjectiveValue();
+            if(bestInBeam < best) {
+                best = bestInBeam;
+                stall = 0;
+            } else if(++stall > maxStall) {
+                break;
+            }
+        }
+
+        //the beam emptied or stopped improving without finding a solution.
+        return new SearchResult(null, false, generatedStates, maxDepth);
+    }
+
+    /**
+     * Keeps the best K states offered to it. The worst kept state sits at the head of a
+     * priority queue, so each offer costs O(log K), and the fingerprints of the kept states
+     * are tracked to reject duplicates.
+     */
+    private class Selection {
+        private final Comparator<Candidate> order = Comparator.comparing(candidate -> candidate.state, ranking);
+        private final PriorityQueue<Candidate> worstFirst = new PriorityQueue<>(order.reversed());
+        private final FingerprintSet members = new FingerprintSet(beamWidth);
+
+        /**
+         * Offers a successor, which is kept with the move that produced it if it ranks among the best K.
+         *
+         * @param state The successor.
+         * @param parentStep The last move of the path leading to its parent.
+         */
+        void offer(IState state, Step parentStep) {
+            if(members.contains(fingerprintOf(state))) {
+                metrics.duplicate();
+                return;
+            }
+
+            if(worstFirst.size() == beamWidth) {
+                //the state is not better than any of the kept ones
+                if(ranking.compare(state, worstFirst.peek().state) >= 0)
+                    return;
+                members.remove(fingerprintOf(worstFirst.poll().state));
+            }
+            worstFirst.add(new Candidate(state, new Step(state.getLastMove(), parentStep)));
+            members.add(fingerprintOf(state));
+        }
+
+        /**
+         * @return The kept states, best first.
+         */
+        List<Candidate> states() {
+            List<Candidate> states = new ArrayList<>(worstFirst);
+            states.sort(order);
+            return states;
+        }
+    }
+
+    @Override
+    protected boolean isComplete() {
+        //the states left out of the beam are never explored
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "Beam Search";
+    }
+}
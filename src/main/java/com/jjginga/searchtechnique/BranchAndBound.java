@@ -0,0 +1,190 @@
+package com.jjginga.searchtechnique;
+
+import com.jjginga.result.SearchResult;
+import com.jjginga.state.IState;
+import com.jjginga.visited.IVisitedSet;
+import com.jjginga.visited.TranspositionStore;
+
+import java.util.*;
+
+/**
+ * Implements a depth-first Branch and Bound optimiser, which looks for the fewest borders
+ * reachable from the initial state rather than for any state meeting the objective.
+ *
+ * The best state reached so far is the incumbent, and its number of borders the bound that every
+ * other branch must beat: each improvement tightens it. The lower bound on the borders reachable
+ * from the initial state (see IState.getReachableLowerBound) is the same for every state, so it
+ * cannot prune a branch, but an incumbent meeting it ends the search at once. No other bound is
+ * known for a single state, so without a transposition store nothing is pruned and proving the
+ * optimum means exploring every reachable state, as DFS does. A store prunes the states it proved
+ * unable to beat the incumbent, and answers an instance whose optimum it already holds, together
+ * with a path reaching it, without searching.
+ *
+ * The objective is a threshold of good enough: the search stops at the first state meeting it,
+ * which is only reported as optimal when it meets the lower bound too. An objective below the
+ * optimum, such as 0, makes it search until the optimum is proven, and the result then reports
+ * the optimum without a solution. A search stopped by a cancellation or its time limit reports the
+ * incumbent, which is not proven optimal.
+ */
+public class BranchAndBound extends AbstractSearchTechnique {
+
+    /**
+     * Constructs a Branch and Bound search for the optimum of an initial state.
+     *
+     * @param initialState The state from which to start the search.
+     */
+    public BranchAndBound(IState initialState) {
+        this(initialState, 0);
+    }
+
+    /**
+     * Constructs a Branch and Bound search stopping at the first state meeting an objective.
+     *
+     * @param initialState The state from which to start the search.
+     * @param objective The number of borders that is good enough, below the optimum to search for the optimum.
+     */
+    public BranchAndBound(IState initialState, int objective) {
+        super(initialState, objective);
+    }
+
+    /**
+     * Explores the states depth first, modifying a single state in place as DFS does, and
+     * tightens the bound each time a state improves on the incumbent.
+     *
+     * @param initialState The starting state of the search.
+     * @param objective The number of borders that is good enough.
+     * @return A SearchResult holding the incumbent and the moves leading to it, reporting whether it
+     *         meets the objective and whether it was proven optimal.
+     */
+    @Override
+    protected SearchResult performSearch(IState initialState, int objective) {
+        //the initial state is copied, so the caller's one is never modified
+        IState state = initialState.copy();
+        Deque<PrimitiveIterator.OfInt> cursors = new ArrayDeque<>(); //LIFO exploration, one iterator per level
+        int[] path = new int[16]; //moves applied to reach the current state
+        IVisitedSet visited = createVisitedSet(); //to keep track of visited states
+
+        //no state reachable from the initial one has fewer borders
+        int lowerBound = initialState.getReachableLowerBound();
+        //borders of the incumbent, which every branch must beat
+        int incumbent = state.getObjectiveValue();
+        int[] incumbentMoves = new int[0];
+        IState incumbentState = state.copy();
+
+        //count of all states that have been generated
+        int generatedStates = 0;
+        //keeps track of the maximum depth of the search tree
+        int maxDepth = 0;
+
+        visited.add(fingerprintOf(state));
+        improve(state, incumbentMoves);
+        if(incumbent <= objective || incumbent <= lowerBound)
+            return boundResult(incumbentState, generatedStates, incumbentMoves, objective, incumbent <= lowerBound);
+        cursors.push(orderedMoves(state));
+        metrics.expanded();
+
+        while(!cursors.isEmpty()) {
+            //interruption check for externally managed timeouts, cancellations or the time limit.
+            if(shouldStop()) {
+                //the search stops and reports the incumbent
+                return stop(generatedStates, maxDepth);
+            }
+
+            PrimitiveIterator.OfInt cursor = cursors.peek();
+            long start = startGenerationTiming();
+            if(!cursor.hasNext()) {
+                stopGenerationTiming(start);
+                //every move of the current state was tried, we backtrack to its parent
+                cursors.pop();
+                if(!cursors.isEmpty())
+                    state.undo(path[state.getDepth() - initialState.getDepth() - 1]);
+                continue;
+            }
+
+            int move = cursor.nextInt();
+            generatedStates++;
+            state.apply(move);
+            stopGenerationTiming(start);
+            metrics.generated(1);
+            if(!visited.add(fingerprintOf(state))) {
+                metrics.duplicate();
+                state.undo(move);
+                continue;
+            }
+            //the store may have proven that nothing below this state beats the incumbent
+            if(isProvenUnreachable(state, incumbent - 1)) {
+                state.undo(move);
+                continue;
+            }
+
+            int level = state.getDepth() - initialState.getDepth();
+            if(level > path.length)
+                path = Arrays.copyOf(path, path.length * 2);
+            path[level - 1] = move;
+            maxDepth = Math.max(state.getDepth(), maxDepth);
+            if(state.getObjectiveValue() < incumbent) {
+                //the bound is tightened for the rest of the search
+                incumbent = state.getObjectiveValue();
+                incumbentMoves = Arrays.copyOf(path, level);
+                incumbentState = state.copy();
+                improve(state, incumbentMoves);
+
+                if(incumbent <= objective || incumbent <= lowerBound)
+                    return boundResult(incumbentState, generatedStates, incumbentMoves, objective, incumbent <= lowerBound);
+            }
+
+            cursors.push(orderedMoves(state));
+            metrics.expanded();
+            metrics.frontier(cursors.size());
+            metrics.visited(visited.size());
+        }
+
+        //every reachable state was explored, nothing beats the incumbent unless a state was wrongly skipped as visited
+        return boundResult(incumbentState, generatedStates, incumbentMoves, objective, visited.falsePositiveRate() == 0);
+    }
+
+    /**
+     * Builds the result reporting the incumbent.
+     *
+     * @param incumbent The best state reached.
+     * @param generatedStates The number of states generated by the search.
+     * @param moves The encoded moves leading from the initial state to the incumbent.
+     * @param objective The number of borders that is good enough.
+     * @param optimal Whether the incumbent was proven optimal.
+     * @return The SearchResult reporting the incumbent.
+     */
+    private static SearchResult boundResult(IState incumbent, int generatedStates, int[] moves, int objective, boolean optimal) {
+        SearchResult result = new SearchResult(incumbent, incumbent.getObjectiveValue() <= objective, generatedStates, incumbent.getDepth());
+        result.setMoves(moves);
+        result.setOptimal(optimal);
+        return result;
+    }
+
+    /**
+     * Answers from the store when it holds the optimum of the initial state, that is a lower
+     * bound together with a stored path reaching it. The objective only tells when the incumbent
+     * is good enough, so an objective below the lower bound does not make the search pointless, it
+     * makes it search for the optimum.
+     *
+     * @param initialState The initial state of the search.
+     * @param objective The number of borders that is good enough.
+     * @return The stored optimum, null if the search must be performed.
+     */
+    @Override
+    protected SearchResult answerWithoutSearching(IState initialState, int objective) {
+        int optimum = storedLowerBound(initialState);
+        if(optimum == TranspositionStore.UNKNOWN)
+            return null;
+        int[] moves = storedSolution(initialState, optimum);
+        if(moves == null)
+            return null;
+        IState solution = replay(initialState, moves);
+        improve(solution, moves);
+        return boundResult(solution, 0, moves, objective, true);
+    }
+
+    @Override
+    public String toString() {
+        return "Branch and Bound";
+    }
+}
@@ -2,11 +2,14 @@ package com.jjginga.searchtechnique;
 
 import com.jjginga.result.SearchResult;
 import com.jjginga.state.IState;
+import com.jjginga.visited.IVisitedSet;
 
 import java.util.*;
 
 /**
  * Implements the Depth-First Search (DFS) algorithm extending the AbstractSearchTechnique for searching through states.
+ * With a transposition store, reaching a state on the path of a stored solution ends the search
+ * along that path, and states proven out of reach are not explored.
  */
 public class DFS extends AbstractSearchTechnique {
 
@@ -29,13 +32,16 @@ public class DFS extends AbstractSearchTechnique {
      * backtracking. This method is particularly suited for scenarios where a complete exploration of one branch is
      * preferred before moving to another branch.
      *
-     * The use of a Stack data structure enables the algorithm to adopt a Last-In-First-Out (LIFO) approach to exploring
-     * states. This means the most recently discovered state is explored first, allowing the algorithm to dive deep
-     * into one part of the search space before exploring alternatives. This characteristic is what enables the
-     * depth-first exploration pattern.
+     * The search keeps a single state that is modified in place: descending applies a move and backtracking undoes
+     * it. A stack holds one lazy move iterator per level of the current path, following a Last-In-First-Out (LIFO)
+     * approach: the most recently reached state is explored first, and only the moves that are actually tried are
+     * generated, without allocating a state for each of them. This characteristic is what enables the depth-first
+     * exploration pattern with memory proportional to the depth of the path. The moves of each level are tried in
+     * the order of the move ordering of the search; orderings other than grid-scan order rank them all up front,
+     * which costs a move per valid move of the level but steers the first dive towards the largest reductions.
      *
-     * A Set is used to keep track of visited states to prevent the algorithm from cycling indefinitely in case of
-     * loops within the search space. By checking if a newly generated state has already been visited, the algorithm
+     * A set of fingerprints is used to keep track of visited states to prevent the algorithm from cycling indefinitely in case of
+     * loops within the search space. By checking if a newly reached state has already been visited, the algorithm
      * ensures it only explores new, unique states, thus preventing infinite loops and reducing redundant computations.
      *
      * @param objective The objective to achieve.
@@ -46,44 +52,83 @@ public class DFS extends AbstractSearchTechnique {
      */
     @Override
     protected SearchResult performSearch(IState initialState, int objective) {
-        //in both cases access is O(1)
-        Deque<IState> deque = new ArrayDeque<>(); //LIFO exploration
-        Set<IState> visited = new HashSet<>(); //to keep track of visited states
+        //the initial state is copied, so the caller's one is never modified
+        IState state = initialState.copy();
+        Deque<PrimitiveIterator.OfInt> cursors = new ArrayDeque<>(); //LIFO exploration, one iterator per level
+        int[] path = new int[16]; //moves applied to reach the current state
+        IVisitedSet visited = createVisitedSet(); //to keep track of visited states
 
         //count of all states that have been generated
         int generatedStates = 0;
         //keeps track of the maximum depth of the search tree
         int maxDepth = 0;
 
-        deque.add(initialState);
-        visited.add(initialState);
+        visited.add(fingerprintOf(state));
+        improve(state, new int[0]);
+        if(state.getObjectiveValue() <= objective)
+            return solutionResult(state, generatedStates, new int[0]);
+        cursors.push(orderedMoves(state));
+        metrics.expanded();
 
-        while(!deque.isEmpty()) {
-            IState currentState = deque.pop();
-            maxDepth = Math.max(currentState.getDepth(), maxDepth);
+        while(!cursors.isEmpty()) {
+            //interruption check for externally managed timeouts, cancellations or the time limit.
+            if(shouldStop()) {
+                //the search stops and reports the best state found so far
+                return stop(generatedStates, maxDepth);
+            }
+
+            PrimitiveIterator.OfInt cursor = cursors.peek();
+            long start = startGenerationTiming();
+            if(!cursor.hasNext()) {
+                stopGenerationTiming(start);
+                //every move of the current state was tried, we backtrack to its parent
+                cursors.pop();
+                if(!cursors.isEmpty())
+                    state.undo(path[state.getDepth() - initialState.getDepth() - 1]);
+                continue;
+            }
 
-            //interruption check for externally managed timeouts or cancellations.
-            if(Thread.currentThread().isInterrupted()) {
-                //capture the current search
-                captureCurrentState(currentState,generatedStates,maxDepth);
-                latch.countDown();
+            int move = cursor.nextInt();
+            generatedStates++;
+            state.apply(move);
+            stopGenerationTiming(start);
+            metrics.generated(1);
+            if(!visited.add(fingerprintOf(state))) {
+                metrics.duplicate();
+                state.undo(move);
+                continue;
             }
+            if(isProvenUnreachable(state, objective)) {
+                state.undo(move);
+                continue;
+            }
+
+            int level = state.getDepth() - initialState.getDepth();
+            if(level > path.length)
+                path = Arrays.copyOf(path, path.length * 2);
+            path[level - 1] = move;
+            maxDepth = Math.max(state.getDepth(), maxDepth);
+            if(isImprovement(state))
+                improve(state, Arrays.copyOf(path, level));
 
             //check if solution is found
-            if(currentState.getObjectiveValue() <= objective) {
+            if(state.getObjectiveValue() <= objective) {
                 //found a solution meeting the objective.
-                return new SearchResult(currentState, true, generatedStates,currentState.getDepth());
+                return solutionResult(state, generatedStates, Arrays.copyOf(path, level));
             }
 
-            //generate and add to queue all successor states
-            List<IState> successors = generateSuccessors(currentState);
-            generatedStates += successors.size();
-            for(IState successor : successors) {
-                if(!visited.contains(successor)) {
-                    deque.add(successor);
-                    visited.add(successor);
-                }
+            //a solution from this state may have been stored by a previous search
+            int[] stored = storedSolution(state, objective);
+            if(stored != null) {
+                int[] moves = Arrays.copyOf(path, level + stored.length);
+                System.arraycopy(stored, 0, moves, level, stored.length);
+                return solutionResult(replay(state, stored), generatedStates, moves);
             }
+
+            cursors.push(orderedMoves(state));
+            metrics.expanded();
+            metrics.frontier(cursors.size());
+            metrics.visited(visited.size());
         }
 
         //search space was fully explored without finding a solution.
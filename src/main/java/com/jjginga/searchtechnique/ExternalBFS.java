@@ -0,0 +1,280 @@
+package com.jjginga.searchtechnique;
+
+import com.jjginga.result.SearchResult;
+import com.jjginga.state.IState;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Implements an external-memory Breadth-First Search, for state spaces whose frontier and
+ * visited states do not fit in the heap. Each layer of the search is a file of packed states,
+ * sorted and without duplicates, which is streamed through memory-mapped windows.
+ *
+ * Duplicates are detected in a delayed way: the successors of a layer are collected in a
+ * bounded buffer, which is sorted and written to a run file whenever it fills up. Once the
+ * layer is expanded, the runs are merged and every successor already present in the merged
+ * runs or in any previous layer is dropped. Moves cannot always be undone, so a state may
+ * reappear at any depth and the previous layers are all kept on disk, which also lets the
+ * path to a solution be rebuilt by looking up each parent in its layer. The heap used only
+ * depends on the size of the run buffer and on the number of files being merged.
+ */
+public class ExternalBFS extends AbstractSearchTechnique {
+
+    //number of successors kept in the heap before they are sorted and written to a run file
+    public static final int DEFAULT_RUN_SIZE = 1 << 16;
+
+    private final Path directory;//where the layer and run files are created, null for a temporary directory
+    private final int runSize;//number of successors buffered before writing a run
+
+    /**
+     * Constructs an external BFS working in a temporary directory, deleted at the end of the search.
+     *
+     * @param initialState The state from which to start the search.
+     * @param objective The search objective.
+     */
+    public ExternalBFS(IState initialState, int objective) {
+        this(initialState, objective, null, DEFAULT_RUN_SIZE);
+    }
+
+    /**
+     * Constructs an external BFS working in a given directory. Its files are deleted at the end of the search.
+     *
+     * @param initialState The state from which to start the search.
+     * @param objective The search objective.
+     * @param directory The directory where the files are created, null for a temporary directory.
+     * @param runSize The number of successors buffered in the heap before writing a run.
+     */
+    public ExternalBFS(IState initialState, int objective, Path directory, int runSize) {
+        super(initialState, objective);
+        if(runSize < 1)
+            throw new IllegalArgumentException("The run size must be at least 1");
+        this.directory = directory;
+        this.runSize = runSize;
+    }
+
+    /**
+     * Executes the search layer by layer. Each state of the current layer is read back from its
+     * file, checked against the objective and expanded, then the next layer is built from the
+     * runs of successors.
+     *
+     * @param initialState The initial state from where the search starts.
+     * @param objective The goal to achieve, such as a maximum number of borders.
+     * @return A SearchResult object encapsulating the outcome of the search.
+     */
+    @Override
+    protected SearchResult performSearch(IState initialState, int objective) {
+        Path workDirectory = null;
+        List<RecordFile> layers = new ArrayList<>();
+        List<RecordFile> runs = new ArrayList<>();
+        try {
+            workDirectory = directory != null ? directory : Files.createTempDirectory("external-bfs");
+
+            //a record holds the packed state followed by the move that produced it
+            int keyLongs = initialState.pack().length;
+            int recordLongs = keyLongs + 1;
+            Comparator<long[]> order = RecordFile.order(keyLongs);
+
+            RecordFile root = new RecordFile(workDirectory.resolve("layer-0"), recordLongs, keyLongs);
+            try(RecordFile.Writer writer = root.writer()) {
+                writer.write(record(initialState.pack(), IState.NO_MOVE, recordLongs));
+            }
+            layers.add(root);
+
+            //count of all states that have been generated
+            int generatedStates = 0;
+            long[][] buffer = new long[runSize][];
+            //states written to the layers so far, all kept on disk for duplicate detection
+            long visitedStates = 1;
+            for(int layerIndex = 0; layers.get(layerIndex).count() > 0; layerIndex++) {
+                int depth = initialState.getDepth() + layerIndex;
+                int buffered = 0;
+                //successors generated from this layer, the ones not kept in the next layer were duplicates
+                long layerGenerated = 0;
+
+                RecordFile.Reader reader = layers.get(layerIndex).reader();
+                while(reader.advance()) {
+                    IState currentState = initialState.unpack(Arrays.copyOf(reader.current(), keyLongs), depth);
+
+                    int lastMove = (int) reader.current()[keyLongs];
+                    if(isImprovement(currentState))
+                        improve(currentState, path(currentState, lastMove, layers));
+
+                    //interruption check for externally managed timeouts, cancellations or the time limit.
+                    if(shouldStop()) {
+                        //the search stops and reports the best state found so far
+                        return stop(generatedStates, depth);
+                    }
+
+                    //check if solution is found
+                    if(currentState.getObjectiveValue() <= objective) {
+                        //found a solution meeting the objective.
+                        return solutionResult(currentState, generatedStates, path(currentState, lastMove, layers));
+                    }
+
+                    List<IState> successors = generateSuccessors(currentState);
+                    generatedStates += successors.size();
+                    layerGenerated += successors.size();
+                    for(IState successor : successors) {
+                        buffer[buffered++] = record(successor.pack(), successor.getLastMove(), recordLongs);
+                        if(buffered == runSize) {
+                            runs.add(writeRun(buffer, buffered, order, workDirectory, runs.size(), recordLongs, keyLongs));
+                            buffered = 0;
+                        }
+                    }
+                }
+                if(buffered > 0)
+                    runs.add(writeRun(buffer, buffered, order, workDirectory, runs.size(), recordLongs, keyLongs));
+
+                RecordFile next = new RecordFile(workDirectory.resolve("layer-" + (layerIndex + 1)), recordLongs, keyLongs);
+                mergeRuns(runs, layers, next, order);
+                metrics.duplicates(layerGenerated - next.count());
+                metrics.frontier(next.count());
+                visitedStates += next.count();
+                metrics.visited(visitedStates);
+                for(RecordFile run : runs)
+                    run.delete();
+                runs.clear();
+                layers.add(next);
+            }
+
+            //search space was fully explored without finding a solution.
+            return new SearchResult(null, false, generatedStates, initialState.getDepth() + layers.size() - 2);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for(RecordFile run : runs)
+                run.delete();
+            for(RecordFile layer : layers)
+                layer.delete();
+            if(directory == null && workDirectory != null)
+                workDirectory.toFile().delete();
+        }
+    }
+
+    /**
+     * Builds a record from a packed state and the move that produced it.
+     */
+    private static long[] record(long[] packed, int move, int recordLongs) {
+        long[] record = Arrays.copyOf(packed, recordLongs);
+        record[recordLongs - 1] = move;
+        return record;
+    }
+
+    /**
+     * Sorts the buffered successors, drops the duplicates among them and writes them to a new run file.
+     *
+     * @return The run file.
+     */
+    private static RecordFile writeRun(long[][] buffer, int buffered, Comparator<long[]> order, Path workDirectory,
+                                       int index, int recordLongs, int keyLongs) {
+        Arrays.sort(buffer, 0, buffered, order);
+        RecordFile run = new RecordFile(workDirectory.resolve("run-" + index), recordLongs, keyLongs);
+        try(RecordFile.Writer writer = run.writer()) {
+            for(int i = 0; i < buffered; i++)
+                if(i == 0 || order.compare(buffer[i - 1], buffer[i]) != 0)
+                    writer.write(buffer[i]);
+        }
+        Arrays.fill(buffer, 0, buffered, null);
+        return run;
+    }
+
+    /**
+     * Merges the sorted runs into the next layer, keeping a single copy of each state and
+     * dropping the states already present in a previous layer. Every previous layer is
+     * sorted too, so each of them is scanned once alongside the merge.
+     *
+     * @param runs The sorted runs of successors.
+     * @param layers The previous layers.
+     * @param next The file receiving the next layer.
+     * @param order The order of the records.
+     */
+    private static void mergeRuns(List<RecordFile> runs, List<RecordFile> layers, RecordFile next, Comparator<long[]> order) {
+        PriorityQueue<RecordFile.Reader> merge = new PriorityQueue<>((reader1, reader2) -> order.compare(reader1.current(), reader2.current()));
+        for(RecordFile run : runs) {
+            RecordFile.Reader reader = run.reader();
+            if(reader.advance())
+                merge.add(reader);
+        }
+        List<RecordFile.Reader> previous = new ArrayList<>();
+        for(RecordFile layer : layers) {
+            RecordFile.Reader reader = layer.reader();
+            if(reader.advance())
+                previous.add(reader);
+        }
+
+        //last record taken from the runs, copies of a state come out of the merge one after the other
+        long[] last = new long[next.recordLongs];
+        boolean hasLast = false;
+        try(RecordFile.Writer writer = next.writer()) {
+            while(!merge.isEmpty()) {
+                RecordFile.Reader reader = merge.poll();
+                long[] candidate = reader.current();
+                if(!hasLast || order.compare(last, candidate) != 0) {
+                    if(!isInAny(candidate, previous, order))
+                        writer.write(candidate);
+                    System.arraycopy(candidate, 0, last, 0, last.length);
+                    hasLast = true;
+                }
+
+                if(reader.advance())
+                    merge.add(reader);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a record is present in any of the sorted files being scanned, advancing
+     * each of them past the records that come before it.
+     */
+    private static boolean isInAny(long[] candidate, List<RecordFile.Reader> readers, Comparator<long[]> order) {
+        boolean found = false;
+        for(RecordFile.Reader reader : readers) {
+            while(reader.hasCurrent() && order.compare(reader.current(), candidate) < 0)
+                reader.advance();
+            if(reader.hasCurrent() && order.compare(reader.current(), candidate) == 0)
+                found = true;
+        }
+        return found;
+    }
+
+    /**
+     * Rebuilds the moves leading to a state of the last layer: undoing the move that produced
+     * a state gives its parent, which is looked up in the previous layer to find the move that
+     * produced it, and so on back to the initial state.
+     *
+     * @param state The state reached by the search.
+     * @param lastMove The move that produced it.
+     * @param layers The layers of the search, the state belonging to the last one expanded.
+     * @return The encoded moves, in the order they must be applied to the initial state.
+     */
+    private static int[] path(IState state, int lastMove, List<RecordFile> layers) {
+        IState current = state.copy();
+        int length = layers.size() - 1;
+        int[] moves = new int[length];
+        long[] record = new long[layers.get(0).recordLongs];
+
+        int move = lastMove;
+        for(int layerIndex = length - 1; layerIndex >= 0; layerIndex--) {
+            moves[layerIndex] = move;
+            current.undo(move);
+            if(!layers.get(layerIndex).find(current.pack(), record))
+                throw new IllegalStateException("Parent state missing from layer " + layerIndex);
+            move = (int) record[record.length - 1];
+        }
+        return moves;
+    }
+
+    @Override
+    protected boolean isDepthOptimal() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "External Breath First Search";
+    }
+}
@@ -0,0 +1,198 @@
+package com.jjginga.searchtechnique;
+
+import com.jjginga.heuristic.BorderReductionHeuristic;
+import com.jjginga.heuristic.IHeuristic;
+import com.jjginga.result.SearchResult;
+import com.jjginga.state.IState;
+import com.jjginga.visited.FingerprintSet;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+/**
+ * Implements the Iterative Deepening A* (IDA*) algorithm. Each iteration is a depth-first
+ * search that prunes every state whose f = g + h exceeds the current bound, and the next
+ * bound is the smallest f that was pruned. With an admissible heuristic the first solution
+ * found has minimum depth, while memory stays linear in the depth of the search: a single
+ * state is modified in place by applying and undoing moves, and only the fingerprints of the
+ * states on the current path are kept, to avoid cycles.
+ */
+public class IDAStar extends AbstractSearchTechnique {
+
+    //value returned by the bounded search when a solution is found
+    private static final int FOUND = -1;
+    //value returned by the bounded search when it was interrupted
+    private static final int ABORTED = -2;
+
+    private final IHeuristic heuristic;//estimates the moves still needed from a state
+
+    /**
+     * Constructs an IDA* search using the border reduction heuristic.
+     *
+     * @param initialState The state from which to start the search.
+     * @param objective The search objective.
+     */
+    public IDAStar(IState initialState, int objective) {
+        this(initialState, objective, new BorderReductionHeuristic());
+    }
+
+    /**
+     * Constructs an IDA* search with a given heuristic.
+     *
+     * @param initialState The state from which to start the search.
+     * @param objective The search objective.
+     * @param heuristic The heuristic guiding the search.
+     */
+    public IDAStar(IState initialState, int objective, IHeuristic heuristic) {
+        super(initialState, objective);
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Performs the IDA* iterations, starting with the heuristic estimate of the initial
+     * state as bound, until a solution is found or no state was pruned by the bound.
+     *
+     * @param initialState The starting state of the search.
+     * @param objective The goal to be achieved.
+     * @return SearchResult containing the outcome of the search.
+     */
+    @Override
+    protected SearchResult performSearch(IState initialState, int objective) {
+        //the initial state is copied, so the caller's one is never modified
+        IState state = initialState.copy();
+        Descent descent = new Descent(initialState.getDepth());
+        int bound = heuristic.estimate(state, objective);
+
+        while(bound != Integer.MAX_VALUE) {
+            descent.path = new FingerprintSet();
+            descent.path.add(fingerprintOf(initialState));
+
+            int next = boundedSearch(descent, state, objective, bound);
+            if(next == FOUND)
+                return solutionResult(descent.solution, descent.generatedStates, descent.solutionMoves);
+            if(next == ABORTED)
+                return notFoundResult;
+            bound = next;
+        }
+
+        //no state was pruned, so the search space was fully explored without finding a solution.
+        return new SearchResult(null, false, descent.generatedStates, descent.maxDepth);
+    }
+
+    /**
+     * State of a single search, so that running the technique again starts afresh.
+     */
+    private static final class Descent {
+        //depth of the initial state, the moves of the path are indexed relative to it
+        private final int rootDepth;
+        //keeps track of the number of generated states
+        private int generatedStates = 0;
+        //keeps track of the maximum depth reached
+        private int maxDepth = 0;
+        //fingerprints of the states on the current path
+        private FingerprintSet path;
+        //solution found by the last iteration
+        private IState solution;
+        //moves leading to the solution
+        private int[] solutionMoves;
+        //moves applied to reach the current state, indexed by level below the initial state
+        private int[] pathMoves = new int[16];
+
+        Descent(int rootDepth) {
+            this.rootDepth = rootDepth;
+        }
+    }
+
+    /**
+     * Depth-first search limited by a bound on f = g + h.
+     *
+     * @param descent The state of the search.
+     * @param currentState The state being explored, which is restored before returning.
+     * @param objective The search objective.
+     * @param bound The maximum f of the states explored in this iteration.
+     * @return FOUND if a solution was found, ABORTED if the search was stopped, otherwise
+     *         the smallest f that exceeded the bound (Integer.MAX_VALUE if none did).
+     */
+    private int boundedSearch(Descent descent, IState currentState, int objective, int bound) {
+        int estimate = heuristic.estimate(currentState, objective);
+        if(estimate == Integer.MAX_VALUE)
+            return Integer.MAX_VALUE;
+
+        int f = currentState.getDepth() + estimate;
+        if(f > bound)
+            return f;
+
+        descent.maxDepth = Math.max(currentState.getDepth(), descent.maxDepth);
+
+        if(isImprovement(currentState))
+            improve(currentState, Arrays.copyOf(descent.pathMoves, currentState.getDepth() - descent.rootDepth));
+
+        //interruption check for externally managed timeouts, cancellations or the time limit.
+        if(shouldStop()) {
+            //the search stops and reports the best state found so far
+            stop(descent.generatedStates, descent.maxDepth);
+            return ABORTED;
+        }
+
+        //check if a solution is found
+        if(currentState.getObjectiveValue() <= objective) {
+            descent.solution = currentState.copy();
+            descent.solutionMoves = Arrays.copyOf(descent.pathMoves, currentState.getDepth() - descent.rootDepth);
+            return FOUND;
+        }
+
+        int minExceeded = Integer.MAX_VALUE;
+        metrics.expanded();
+        metrics.frontier(currentState.getDepth() - descent.rootDepth);
+        metrics.visited(descent.path.size());
+        PrimitiveIterator.OfInt moves = orderedMoves(currentState);
+        while(true) {
+            long start = startGenerationTiming();
+            if(!moves.hasNext()) {
+                stopGenerationTiming(start);
+                break;
+            }
+            int move = moves.nextInt();
+            descent.generatedStates++;
+            currentState.apply(move);
+            stopGenerationTiming(start);
+            metrics.generated(1);
+
+            int next = Integer.MAX_VALUE;
+            //states already on the path would only lead to cycles
+            long fingerprint = fingerprintOf(currentState);
+            if(descent.path.add(fingerprint)) {
+                int level = currentState.getDepth() - descent.rootDepth;
+                if(level > descent.pathMoves.length)
+                    descent.pathMoves = Arrays.copyOf(descent.pathMoves, descent.pathMoves.length * 2);
+                descent.pathMoves[level - 1] = move;
+                next = boundedSearch(descent, currentState, objective, bound);
+                descent.path.remove(fingerprint);
+            } else {
+                metrics.duplicate();
+            }
+            currentState.undo(move);
+
+            if(next == FOUND || next == ABORTED)
+                return next;
+            minExceeded = Math.min(minExceeded, next);
+        }
+        return minExceeded;
+    }
+
+    @Override
+    protected boolean isDepthOptimal() {
+        return true;
+    }
+
+    @Override
+    protected boolean isExhaustive() {
+        //states estimated out of reach are never expanded
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "Iterative Deepening A* Search";
+    }
+}
@@ -2,24 +2,61 @@ package com.jjginga.searchtechnique;
 
 import com.jjginga.result.SearchResult;
 import com.jjginga.state.IState;
+import com.jjginga.visited.FingerprintSet;
+import com.jjginga.visited.TranspositionTable;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
 
 /**
  * Implements the Iterative Deepening Depth-First Search (IDDFS) algorithm.
  * IDDFS combines the space-efficiency of Depth-First Search (DFS) with the
  * optimal depth-level search of Breadth-First Search (BFS), making it effective
  * for searching in spaces where the solution depth is unknown.
+ *
+ * Each iteration is a recursive depth-limited DFS over a single state modified in place,
+ * applying a move to descend and undoing it to backtrack, and only the fingerprints of the
+ * current path are kept, so memory is proportional to the depth limit. An optional bounded
+ * transposition table lets an iteration skip states it already explored with at least the
+ * same remaining depth, at a fixed memory cost. As with any transposition table combined with
+ * cycle detection on the path, a subtree explored while part of it was cut as a cycle may
+ * occasionally hide a solution reachable through another path. A search using the table is
+ * therefore neither complete nor depth-optimal: an iteration in which the table left no state
+ * at the depth limit proves nothing, so it is repeated without the table, which then carries on
+ * deepening until it finds a solution or truly runs out of states.
  */
 
  public class IterativeDDFS extends AbstractSearchTechnique {
 
+    //outcomes of a depth-limited search besides not finding anything
+    private static final int NOT_FOUND = 0;
+    private static final int FOUND = 1;
+    private static final int ABORTED = 2;
+
+    //optional table of subtrees already explored, null when disabled
+    private final TranspositionTable transpositionTable;
+
+    /**
+     * Constructs an IDDFS without transposition table, using memory proportional to the depth only.
+     *
+     * @param initialState The state from which to start the search.
+     * @param objective The search objective.
+     */
     public IterativeDDFS(IState initialState, int objective) {
-        super(initialState, objective);
+        this(initialState, objective, 0);
     }
 
-    //keeps track of the number of generated states
-    int generatedStates = 0;
+    /**
+     * Constructs an IDDFS with a bounded transposition table.
+     *
+     * @param initialState The state from which to start the search.
+     * @param objective The search objective.
+     * @param transpositionTableSize The number of entries of the table, 0 to disable it.
+     */
+    public IterativeDDFS(IState initialState, int objective, int transpositionTableSize) {
+        super(initialState, objective);
+        this.transpositionTable = transpositionTableSize > 0 ? new TranspositionTable(transpositionTableSize) : null;
+    }
 
     /**
      * Performs the IDDFS algorithm, incrementally increasing the depth limit
@@ -31,75 +68,150 @@ import java.util.*;
      */
     @Override
     protected SearchResult performSearch(IState initialState, int objective) {
-        int maxDepth = 0;
-        SearchResult result = null;
+        //the initial state is copied, so the caller's one is never modified
+        IState state = initialState.copy();
+        Descent descent = new Descent(initialState.getDepth(), transpositionTable != null);
 
         //iteratively increase the depth limit until a solution if found
-        while(result == null) {
-            result = deepLimitedSearch(initialState, objective, maxDepth);
-            maxDepth++;
+        for(int depthLimit = 0; ; depthLimit++) {
+            descent.path = new FingerprintSet();
+            descent.path.add(fingerprintOf(initialState));
+            descent.cutoff = false;
+            if(descent.usingTable)
+                transpositionTable.nextIteration();
+
+            int outcome = depthLimitedSearch(descent, state, objective, depthLimit);
+            if(outcome == FOUND)
+                //found a solution meeting the objective
+                return solutionResult(descent.solution, descent.generatedStates, descent.solutionMoves);
+            if(outcome == ABORTED)
+                return notFoundResult;
+
+            //the table may have hidden the states left below the depth limit, the iteration is repeated without it
+            if(!descent.cutoff && descent.usingTable) {
+                descent.usingTable = false;
+                depthLimit--;
+                continue;
+            }
+            //nothing was left below the depth limit, all the states have been explored and no solution has been found
+            if(!descent.cutoff)
+                return new SearchResult(null, false, descent.generatedStates, depthLimit);
         }
+    }
 
-
-        return result;
+    /**
+     * State of a single search, so that running the technique again starts afresh.
+     */
+    private static final class Descent {
+        //depth of the initial state, the moves of the path are indexed relative to it
+        private final int rootDepth;
+        //whether the current iteration skips the subtrees found in the table
+        private boolean usingTable;
+        //keeps track of the number of generated states
+        private int generatedStates = 0;
+        //fingerprints of the states on the current path
+        private FingerprintSet path;
+        //whether the current iteration left states unexplored because of the depth limit
+        private boolean cutoff;
+        //solution found by the last iteration
+        private IState solution;
+        //moves leading to the solution
+        private int[] solutionMoves;
+        //moves applied to reach the current state, indexed by level below the initial state
+        private int[] pathMoves = new int[16];
+
+        Descent(int rootDepth, boolean usingTable) {
+            this.rootDepth = rootDepth;
+            this.usingTable = usingTable;
+        }
     }
 
     /**
-     * Conducts a depth-limited search from the initial state up to a specified depth limit.
-     * This method is called repeatedly with increasing depth limits by performSearch.
+     * Conducts a recursive depth-limited search from a state. This method is called
+     * repeatedly with increasing depth limits by performSearch.
      *
-     * @param initialState The state from which the depth-limited search starts.
+     * @param descent The state of the search.
+     * @param currentState The state being explored, which is restored before returning.
      * @param objective The search objective.
-     * @param depthLimit The maximum depth for this iteration of the search.
-     * @return SearchResult indicating success or failure to find a solution within the depth limit.
+     * @param remainingDepth How many more levels can be explored below this state.
+     * @return FOUND if a solution was found, ABORTED if the search was stopped, NOT_FOUND otherwise.
      */
-    private SearchResult deepLimitedSearch(IState initialState, int objective, int depthLimit) {
-
-        //maps each depth level to its stack of states
-        Map<Integer, Deque<IState>> map = new HashMap<>();
-        //tracks visited states to avoid cycles
-        Set<IState> visited = new HashSet<>();
-
-        map.put(0, new ArrayDeque<>());
-        map.get(0).add(initialState);
-        visited.add(initialState);
-
-        for(int level = 0; level < depthLimit; level++) {
-            Deque<IState> deque = map.getOrDefault(level, new ArrayDeque<>());
-
-            //all the states have been explored and no solution has been foind
-            if(deque.isEmpty())
-                return new SearchResult(null, false, generatedStates,level);
-
-            while(!deque.isEmpty()) {
-                IState currentState = deque.pop();
-
-                //check if a solution is foind
-                if(currentState.getObjectiveValue() <= objective)
-                    //found a solution meeting the objective
-                    return new SearchResult(currentState, true, generatedStates,level);
-
-                if(Thread.currentThread().isInterrupted()) {
-                    captureCurrentState(currentState,generatedStates,level);
-                    latch.countDown();
-                }
-
-                //generates successors and puts them in the map
-                List<IState> successors = currentState.generateSuccessors();
-                generatedStates += successors.size();
-
-                map.putIfAbsent(level+1, new ArrayDeque<>());
-                Deque<IState> nextLevelDeque = map.get(level+1);
-
-                for(IState successor : successors) {
-                    if(!visited.contains(successor)){
-                        nextLevelDeque.add(successor);
-                        visited.add(successor);
-                    }
-                }
+    private int depthLimitedSearch(Descent descent, IState currentState, int objective, int remainingDepth) {
+        if(isImprovement(currentState))
+            improve(currentState, Arrays.copyOf(descent.pathMoves, currentState.getDepth() - descent.rootDepth));
+
+        //interruption check for externally managed timeouts, cancellations or the time limit.
+        if(shouldStop()) {
+            //the search stops and reports the best state found so far
+            stop(descent.generatedStates, currentState.getDepth());
+            return ABORTED;
+        }
+
+        //check if a solution is found
+        if(currentState.getObjectiveValue() <= objective) {
+            descent.solution = currentState.copy();
+            descent.solutionMoves = Arrays.copyOf(descent.pathMoves, currentState.getDepth() - descent.rootDepth);
+            return FOUND;
+        }
+
+        //this state was already explored in this iteration with at least as much depth, any
+        //state it has beyond the depth limit was already accounted for in the cutoff flag
+        if(descent.usingTable && !transpositionTable.visit(fingerprintOf(currentState), remainingDepth)) {
+            metrics.duplicate();
+            return NOT_FOUND;
+        }
+
+        if(remainingDepth == 0) {
+            descent.cutoff = true;
+            return NOT_FOUND;
+        }
+
+        metrics.expanded();
+        metrics.frontier(currentState.getDepth() - descent.rootDepth);
+        metrics.visited(descent.path.size());
+        PrimitiveIterator.OfInt moves = orderedMoves(currentState);
+        while(true) {
+            long start = startGenerationTiming();
+            if(!moves.hasNext()) {
+                stopGenerationTiming(start);
+                break;
             }
+            int move = moves.nextInt();
+            descent.generatedStates++;
+            currentState.apply(move);
+            stopGenerationTiming(start);
+            metrics.generated(1);
+
+            int outcome = NOT_FOUND;
+            //states already on the path would only lead to cycles
+            long fingerprint = fingerprintOf(currentState);
+            if(descent.path.add(fingerprint)) {
+                int level = currentState.getDepth() - descent.rootDepth;
+                if(level > descent.pathMoves.length)
+                    descent.pathMoves = Arrays.copyOf(descent.pathMoves, descent.pathMoves.length * 2);
+                descent.pathMoves[level - 1] = move;
+                outcome = depthLimitedSearch(descent, currentState, objective, remainingDepth - 1);
+                descent.path.remove(fingerprint);
+            } else {
+                metrics.duplicate();
+            }
+            currentState.undo(move);
+
+            if(outcome != NOT_FOUND)
+                return outcome;
         }
-        return null;
+
+        return NOT_FOUND;
+    }
+
+    @Override
+    protected boolean isDepthOptimal() {
+        return transpositionTable == null;
+    }
+
+    @Override
+    protected boolean isComplete() {
+        return transpositionTable == null;
     }
 
     @Override
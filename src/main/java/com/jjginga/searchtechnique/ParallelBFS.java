@@ -0,0 +1,218 @@
+package com.jjginga.searchtechnique;
+
+import com.jjginga.result.MoveTrail;
+import com.jjginga.result.SearchResult;
+import com.jjginga.state.IState;
+import com.jjginga.visited.ConcurrentFingerprintSet;
+import com.jjginga.visited.IVisitedSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implements a level-synchronous parallel Breadth-First Search. Each layer of the frontier
+ * is split among the workers of a fork-join pool, which expand their share of states and
+ * deduplicate the successors into a shared concurrent visited set. The successors of all
+ * workers form the next layer, so states are still explored depth by depth and the first
+ * solution found is as shallow as the one found by BFS.
+ *
+ * Between layers the coordinating thread records the move that produced each state of the
+ * new layer, so the path to the solution can be rebuilt without synchronizing the workers.
+ *
+ * A search started from a worker of a fork-join pool, such as one submitted to a SearchService,
+ * expands its layers on that pool instead of creating one of its own, so the searches of the
+ * service share its workers and the parallelism given to the technique is not used.
+ */
+public class ParallelBFS extends AbstractSearchTechnique {
+
+    //number of states below which a worker expands its share without splitting it further
+    private static final int SPLIT_THRESHOLD = 64;
+
+    private final int parallelism;//number of workers of the pool, when the search creates it
+
+    /**
+     * Constructs a parallel BFS using one worker per available processor.
+     *
+     * @param initialState The state from which to start the search.
+     * @param objective The search objective.
+     */
+    public ParallelBFS(IState initialState, int objective) {
+        this(initialState, objective, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a parallel BFS with a given number of workers.
+     *
+     * @param initialState The state from which to start the search.
+     * @param objective The search objective.
+     * @param parallelism The number of worker threads.
+     */
+    public ParallelBFS(IState initialState, int objective, int parallelism) {
+        super(initialState, objective);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Executes the search layer by layer. The calling thread only coordinates: it submits the
+     * expansion of the current layer to the pool, waits for the next layer and stops as soon
+     * as a worker reports a solution, the search is interrupted or its time limit expires. The
+     * best state of each layer is looked for when the layer is recorded in the trail.
+     *
+     * @param initialState The initial state from where the search starts.
+     * @param objective The goal to achieve, such as a maximum number of borders.
+     * @return A SearchResult object encapsulating the outcome of the search.
+     */
+    @Override
+    protected SearchResult performSearch(IState initialState, int objective) {
+        IVisitedSet visited = new ConcurrentFingerprintSet(parallelism * 8);
+        LongAdder generatedStates = new LongAdder();
+        Expansion expansion = new Expansion(objective, visited, generatedStates);
+        //a search already running on a pool shares it rather than nesting a pool of its own
+        boolean ownPool = !ForkJoinTask.inForkJoinPool();
+        ForkJoinPool pool = ownPool ? new ForkJoinPool(parallelism) : ForkJoinTask.getPool();
+        MoveTrail trail = new MoveTrail();
+
+        List<IState> frontier = Collections.singletonList(initialState);
+        visited.add(fingerprintOf(initialState));
+        int maxDepth = 0;
+
+        try {
+            while(!frontier.isEmpty()) {
+                maxDepth = frontier.get(0).getDepth();
+                metrics.frontier(frontier.size());
+                metrics.visited(visited.size());
+                IState layerBest = null;
+                for(IState state : frontier) {
+                    trail.record(state.getFingerprint(), state.getLastMove());
+                    if(isImprovement(state) && (layerBest == null || state.getObjectiveValue() < layerBest.getObjectiveValue()))
+                        layerBest = state;
+                }
+                if(layerBest != null)
+                    improve(layerBest, trail.reconstruct(layerBest));
+
+                ForkJoinTask<List<IState>> layer = pool.submit(new ExpandTask(expansion, frontier, 0, frontier.size()));
+                List<IState> nextFrontier;
+                try {
+                    nextFrontier = layer.get(remainingTimeNanos(), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException | TimeoutException e) {
+                    //externally managed timeout, cancellation or time limit, the workers are stopped
+                    expansion.cancelled.set(true);
+                    if(e instanceof InterruptedException)
+                        Thread.currentThread().interrupt();
+                    //the search stops and reports the best state found so far
+                    return stop(generatedStates.intValue(), maxDepth);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Parallel expansion failed", e.getCause());
+                }
+
+                IState found = expansion.solution.get();
+                if(found != null)
+                    //found a solution meeting the objective.
+                    return solutionResult(found, generatedStates.intValue(), trail.reconstruct(found));
+
+                frontier = nextFrontier;
+            }
+        } finally {
+            if(ownPool)
+                pool.shutdownNow();
+        }
+
+        //search space was fully explored without finding a solution.
+        return new SearchResult(null, false, generatedStates.intValue(), maxDepth);
+    }
+
+    /**
+     * State shared by the workers of a single search, so that nothing outlives it: a worker of a
+     * search that was stopped can never affect the next search of the same technique.
+     */
+    private static final class Expansion {
+        private final int objective;
+        private final IVisitedSet visited;
+        private final LongAdder generatedStates;
+        //solution found by any of the workers, stops the remaining ones
+        private final AtomicReference<IState> solution = new AtomicReference<>();
+        //set when the search is stopped, stops the workers
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        Expansion(int objective, IVisitedSet visited, LongAdder generatedStates) {
+            this.objective = objective;
+            this.visited = visited;
+            this.generatedStates = generatedStates;
+        }
+    }
+
+    /**
+     * Expands a slice of a layer, splitting it in halves until it is small enough
+     * to be expanded by a single worker.
+     */
+    private class ExpandTask extends RecursiveTask<List<IState>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Expansion expansion;//state shared by the workers of the search
+        private final List<IState> frontier;//the whole layer being expanded
+        private final int from;//first index of the slice, inclusive
+        private final int to;//last index of the slice, exclusive
+
+        ExpandTask(Expansion expansion, List<IState> frontier, int from, int to) {
+            this.expansion = expansion;
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<IState> compute() {
+            if(to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                ExpandTask left = new ExpandTask(expansion, frontier, from, middle);
+                ExpandTask right = new ExpandTask(expansion, frontier, middle, to);
+                left.fork();
+                List<IState> successors = new ArrayList<>(right.compute());
+                successors.addAll(left.join());
+                return successors;
+            }
+
+            List<IState> successors = new ArrayList<>();
+            for(int i = from; i < to; i++) {
+                //another worker found a solution or the search was cancelled
+                if(expansion.cancelled.get() || expansion.solution.get() != null)
+                    return successors;
+
+                IState currentState = frontier.get(i);
+                if(currentState.getObjectiveValue() <= expansion.objective) {
+                    expansion.solution.compareAndSet(null, currentState);
+                    return successors;
+                }
+
+                List<IState> generated = generateSuccessors(currentState);
+                expansion.generatedStates.add(generated.size());
+                for(IState successor : generated)
+                    if(expansion.visited.add(fingerprintOf(successor)))
+                        successors.add(successor);
+                    else
+                        metrics.duplicate();
+            }
+            return successors;
+        }
+    }
+
+    @Override
+    protected boolean isDepthOptimal() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "Parallel Breath First Search";
+    }
+}
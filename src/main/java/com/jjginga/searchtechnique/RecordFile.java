@@ -0,0 +1,249 @@
+package com.jjginga.searchtechnique;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+
+/**
+ * A file of fixed-size records of longs, written and read sequentially through memory-mapped
+ * windows, so that files far larger than the heap can be streamed with a constant amount of
+ * memory. Records are compared on their first key words, which lets sorted files be merged
+ * and searched.
+ */
+final class RecordFile {
+
+    //size of the mapped window of a reader or writer, records may straddle two windows
+    private static final int WINDOW_BYTES = 1 << 20;
+
+    final Path path;//location of the file
+    final int recordLongs;//number of longs of each record
+    final int keyLongs;//number of leading longs of a record compared by the order
+    private long count;//number of records in the file
+
+    /**
+     * Describes a file of records, which is created by its writer.
+     *
+     * @param path The location of the file.
+     * @param recordLongs The number of longs of each record.
+     * @param keyLongs The number of leading longs of a record compared by the order.
+     */
+    RecordFile(Path path, int recordLongs, int keyLongs) {
+        this.path = path;
+        this.recordLongs = recordLongs;
+        this.keyLongs = keyLongs;
+    }
+
+    /**
+     * Orders records lexicographically on their key words.
+     *
+     * @param keyLongs The number of leading longs compared.
+     * @return The order of the records.
+     */
+    static Comparator<long[]> order(int keyLongs) {
+        return (record1, record2) -> {
+            for(int i = 0; i < keyLongs; i++) {
+                int comparison = Long.compare(record1[i], record2[i]);
+                if(comparison != 0)
+                    return comparison;
+            }
+            return 0;
+        };
+    }
+
+    /**
+     * @return The number of records in the file.
+     */
+    long count() {
+        return count;
+    }
+
+    /**
+     * Opens a writer that replaces the content of the file.
+     *
+     * @return The writer.
+     */
+    Writer writer() {
+        return new Writer();
+    }
+
+    /**
+     * Opens a reader positioned before the first record.
+     *
+     * @return The reader.
+     */
+    Reader reader() {
+        return new Reader();
+    }
+
+    /**
+     * Looks for a record with the given key in a sorted file, by binary search.
+     *
+     * @param key The key words to look for.
+     * @param record Receives the record found.
+     * @return True if a record with the key was found.
+     */
+    boolean find(long[] key, long[] record) {
+        Comparator<long[]> order = order(keyLongs);
+        ByteBuffer buffer = ByteBuffer.allocate(recordLongs * Long.BYTES);
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long low = 0;
+            long high = count - 1;
+            while(low <= high) {
+                long middle = (low + high) >>> 1;
+                buffer.clear();
+                long position = middle * buffer.capacity();
+                while(buffer.hasRemaining())
+                    position += channel.read(buffer, position);
+                buffer.flip();
+                for(int i = 0; i < recordLongs; i++)
+                    record[i] = buffer.getLong();
+
+                int comparison = order.compare(record, key);
+                if(comparison == 0)
+                    return true;
+                if(comparison < 0)
+                    low = middle + 1;
+                else
+                    high = middle - 1;
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes the file, if it exists.
+     */
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends records to the file through a read-write mapped window, which is moved forward
+     * as it fills. The file is truncated to the records written when the writer is closed.
+     */
+    final class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private MappedByteBuffer window;
+        private long windowStart;//position of the window in the file
+
+        private Writer() {
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                count = 0;
+                map(0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_WRITE, position, WINDOW_BYTES);
+        }
+
+        /**
+         * Appends a record.
+         *
+         * @param record The record, of which the first recordLongs longs are written.
+         */
+        void write(long[] record) {
+            try {
+                for(int i = 0; i < recordLongs; i++) {
+                    if(!window.hasRemaining())
+                        map(windowStart + window.position());
+                    window.putLong(record[i]);
+                }
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                //mapping extended the file to the end of the window
+                channel.truncate(count * recordLongs * Long.BYTES);
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Reads the records of the file in order through a read-only mapped window, which is moved
+     * forward as it is consumed.
+     */
+    final class Reader {
+        private final long size;//size of the file in bytes
+        private MappedByteBuffer window;
+        private long windowStart;//position of the window in the file
+        private final long[] current = new long[recordLongs];//record read last
+        private boolean hasCurrent;//whether current holds a record
+
+        private Reader() {
+            size = count * recordLongs * Long.BYTES;
+            windowStart = 0;
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            //the channel can be closed once mapped, the mapping stays valid
+            try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_BYTES, size - position));
+            }
+        }
+
+        /**
+         * Moves to the next record.
+         *
+         * @return False if the end of the file was reached.
+         */
+        boolean advance() {
+            try {
+                long position = window == null ? 0 : windowStart + window.position();
+                if(position >= size) {
+                    hasCurrent = false;
+                    return false;
+                }
+                for(int i = 0; i < recordLongs; i++) {
+                    if(window == null || !window.hasRemaining())
+                        map(windowStart + (window == null ? 0 : window.position()));
+                    current[i] = window.getLong();
+                }
+                hasCurrent = true;
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * @return The record read by the last successful call to advance, which is overwritten by the next one.
+         */
+        long[] current() {
+            return current;
+        }
+
+        /**
+         * @return Whether the last call to advance returned a record.
+         */
+        boolean hasCurrent() {
+            return hasCurrent;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.jjginga.service;
+
+import com.jjginga.result.SearchResult;
+import com.jjginga.searchtechnique.AbstractSearchTechnique;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Long-lived service running searches for many concurrent requests. The searches themselves,
+ * which are CPU bound, run on a work-stealing pool sized to the processors; everything else is
+ * asynchronous. Each request gets a CompletableFuture, completed by the pool thread that ran the
+ * search, timeouts are enforced by the time limit of the searches, which then report their best
+ * state, and races between techniques are settled by callbacks. The time limit of a request runs
+ * from its submission, so the time it spends queued counts too: a search is given only what is
+ * left when it starts, and one whose time ran out while queued fails at once without searching.
+ * No thread is parked waiting for a request, so thousands of them can be pending at once, queued
+ * on the pool, for the cost of a few objects each.
+ *
+ * Cancelling the future of a request interrupts its search if it is running, which stops it at
+ * its next check, and drops it if it has not started yet.
+ */
+public class SearchService implements AutoCloseable {
+
+    //time limit of the requests submitted without one
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 60_000;
+
+    private final ForkJoinPool searchPool;//runs the searches
+
+    /**
+     * Constructs a service running one search per available processor at a time.
+     */
+    public SearchService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a service.
+     *
+     * @param parallelism The number of searches running at the same time, the others being queued.
+     */
+    public SearchService(int parallelism) {
+        if(parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be at least 1");
+        //the workers of a fork-join pool are daemon threads, an idle service never keeps the JVM alive
+        this.searchPool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Submits a search with the default time limit.
+     *
+     * @param technique The search, which must not be submitted again while it runs.
+     * @return The future result of the search.
+     */
+    public CompletableFuture<SearchResult> submit(AbstractSearchTechnique technique) {
+        return submit(technique, DEFAULT_TIME_LIMIT_MILLIS);
+    }
+
+    /**
+     * Submits a search. Once its time limit is over the search stops and its result reports the
+     * best state it reached; a search still queued by then is not run and its result reports no
+     * state at all.
+     *
+     * @param technique The search, which must not be submitted again while it runs.
+     * @param timeLimitMillis The time the request may take from its submission, in milliseconds, 0 for no limit.
+     * @return The future result of the search.
+     */
+    public CompletableFuture<SearchResult> submit(AbstractSearchTechnique technique, long timeLimitMillis) {
+        if(timeLimitMillis < 0)
+            throw new IllegalArgumentException("The time limit cannot be negative");
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimitMillis);
+        CompletableFuture<SearchResult> result = new CompletableFuture<>();
+        Execution execution = new Execution();
+        result.whenComplete((value, failure) -> {
+            if(result.isCancelled())
+                execution.cancel();
+        });
+
+        searchPool.execute(() -> {
+            if(!execution.begin())
+                return;
+            try {
+                if(timeLimitMillis == 0) {
+                    technique.setTimeLimit(0);
+                } else {
+                    long remainingNanos = deadline - System.nanoTime();
+                    if(remainingNanos <= 0) {
+                        //the time of the request ran out while it was queued
+                        result.complete(expired(technique));
+                        return;
+                    }
+                    //rounded up, so that a search with time left is never given no limit
+                    technique.setTimeLimit(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingNanos + 999_999)));
+                }
+                result.complete(technique.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                execution.end();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Builds the result of a request whose time ran out before its search started.
+     *
+     * @param technique The search that was not run.
+     * @return A result reporting no solution and no state.
+     */
+    private static SearchResult expired(AbstractSearchTechnique technique) {
+        SearchResult result = new SearchResult(null, false, 0, 0);
+        result.setTechnique(technique.toString());
+        return result;
+    }
+
+    /**
+     * Races several techniques on the same instance. The first solution found wins and the other
+     * searches are cancelled; when none finds one, the result reaching the fewest borders is
+     * kept. Cancelling the returned future cancels every search.
+     *
+     * @param techniques The searches, usually on the same instance and objective.
+     * @param timeLimitMillis The time each search may take from the start of the race, in milliseconds, 0 for no limit.
+     * @return The future result of the race, failing only if every search failed.
+     */
+    public CompletableFuture<SearchResult> race(List<AbstractSearchTechnique> techniques, long timeLimitMillis) {
+        CompletableFuture<SearchResult> winner = new CompletableFuture<>();
+        if(techniques.isEmpty()) {
+            winner.completeExceptionally(new IllegalArgumentException("No technique to race"));
+            return winner;
+        }
+
+        AtomicInteger pending = new AtomicInteger(techniques.size());
+        AtomicReference<SearchResult> best = new AtomicReference<>();
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        List<CompletableFuture<SearchResult>> searches = new ArrayList<>();
+        for(AbstractSearchTechnique technique : techniques) {
+            CompletableFuture<SearchResult> search = submit(technique, timeLimitMillis);
+            searches.add(search);
+            search.whenComplete((result, failure) -> {
+                if(result != null && result.isSolutionFound())
+                    winner.complete(result);
+                else if(result != null)
+                    best.accumulateAndGet(result, SearchService::closer);
+                else
+                    firstFailure.compareAndSet(null, failure);
+
+                if(pending.decrementAndGet() == 0) {
+                    if(best.get() != null)
+                        winner.complete(best.get());
+                    else
+                        winner.completeExceptionally(firstFailure.get());
+                }
+            });
+        }
+        //the losers are no longer needed once the race is settled
+        winner.whenComplete((result, failure) -> searches.forEach(search -> search.cancel(true)));
+        return winner;
+    }
+
+    /**
+     * Keeps the result whose state has the fewest borders.
+     */
+    private static SearchResult closer(SearchResult current, SearchResult candidate) {
+        if(current == null || current.getState() == null)
+            return candidate;
+        if(candidate.getState() == null)
+            return current;
+        return candidate.getState().getObjectiveValue() < current.getState().getObjectiveValue() ? candidate : current;
+    }
+
+    /**
+     * Stops accepting searches, interrupts the running ones and drops the queued ones.
+     */
+    @Override
+    public void close() {
+        searchPool.shutdownNow();
+    }
+
+    /**
+     * Waits for the running searches to end after the service was closed.
+     *
+     * @param timeout The maximum time to wait.
+     * @param unit The unit of the timeout.
+     * @return True if every search ended.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return searchPool.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Tracks the thread running a search, so that cancelling it interrupts that thread only
+     * while it runs the search, never a later task of the pool.
+     */
+    private static final class Execution {
+        private Thread thread;//thread running the search, null when it is not running
+        private boolean cancelled;
+
+        /**
+         * @return False if the search was cancelled before it started.
+         */
+        synchronized boolean begin() {
+            if(cancelled)
+                return false;
+            thread = Thread.currentThread();
+            return true;
+        }
+
+        synchronized void end() {
+            thread = null;
+            //an interruption meant for the search must not leak into the next task
+            Thread.interrupted();
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if(thread != null)
+                thread.interrupt();
+        }
+    }
+}
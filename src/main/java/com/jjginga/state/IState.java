@@ -1,6 +1,7 @@
 package com.jjginga.state;
 
 import java.util.List;
+import java.util.PrimitiveIterator;
 
 /**
  * Represents a state in the search space. Defines the operations necessary for
@@ -10,6 +11,9 @@ import java.util.List;
  */
 public interface IState {
 
+    //move recorded for a state that was not produced by a move, such as an initial state
+    public static final int NO_MOVE = -1;
+
     /**
      * Generates and returns a list of successor states following from this state.
      * Successors represent possible next states in the search space.
@@ -18,6 +22,63 @@ public interface IState {
      */
     public List<IState> generateSuccessors();
 
+    /**
+     * Returns a lazy iterator over the valid moves of this state, each encoded as an int.
+     * Moves are only generated as the iterator advances, so a search that needs a single
+     * successor does not pay for all of them. Moves may be applied to this state while
+     * iterating, as long as each one is undone before the iterator is used again.
+     *
+     * @return An iterator over the encoded valid moves.
+     */
+    public PrimitiveIterator.OfInt moves();
+
+    /**
+     * Applies a valid move to this state in place, turning it into the successor.
+     *
+     * @param move The encoded move, as returned by moves().
+     */
+    public void apply(int move);
+
+    /**
+     * Undoes in place the last move applied to this state, restoring the previous state.
+     *
+     * @param move The encoded move that was applied.
+     */
+    public void undo(int move);
+
+    /**
+     * Builds the successor obtained by applying a valid move, leaving this state unchanged.
+     *
+     * @param move The encoded move, as returned by moves().
+     * @return The successor state.
+     */
+    public IState successor(int move);
+
+    /**
+     * Creates an independent copy of this state, unaffected by later moves applied to it.
+     *
+     * @return The copy of the state.
+     */
+    public IState copy();
+
+    /**
+     * Packs the configuration of this state into longs, so that it can be stored outside of
+     * the heap. All the states of the same instance pack to the same number of longs, and
+     * two of them are equal exactly when their packed configurations are.
+     *
+     * @return The packed configuration.
+     */
+    public long[] pack();
+
+    /**
+     * Rebuilds a state of the same instance as this one from a packed configuration.
+     *
+     * @param packed A configuration packed by a state of the same instance.
+     * @param depth The depth of the rebuilt state.
+     * @return The rebuilt state.
+     */
+    public IState unpack(long[] packed, int depth);
+
     /**
      * Evaluates the current state to update its internal values.
      * This method is intended to be called whenever the state changes.
@@ -40,4 +101,67 @@ public interface IState {
      */
     public int getDepth();
 
+    /**
+     * Retrieves a 64-bit fingerprint of the state. Equal states have equal fingerprints,
+     * and distinct states collide only with negligible probability, so the fingerprint can
+     * be used for duplicate detection without inspecting the state itself.
+     *
+     * @return The fingerprint of the state.
+     */
+    public long getFingerprint();
+
+    /**
+     * Retrieves a 64-bit fingerprint of the canonical form of the state, shared by all the
+     * states that differ from it only in ways that cannot change the objective value or the
+     * moves available, such as a symmetry or a relabelling. Search techniques can deduplicate
+     * on it to explore each of these equivalence classes once.
+     *
+     * @return The canonical fingerprint of the state.
+     */
+    public long getCanonicalFingerprint();
+
+    /**
+     * Retrieves a 64-bit fingerprint of the shape of the state, shared by every state of the
+     * same dimensions. Fingerprints only identify states among states of the same shape, so
+     * stores shared by several instances key their entries on both.
+     *
+     * @return The fingerprint of the shape of the state.
+     */
+    public long getLayoutFingerprint();
+
+    /**
+     * Retrieves a lower bound on the objective value of every state reachable from this one,
+     * this one included. Moves only rearrange the state, so the bound is the same for all the
+     * states reachable from it, and an objective below it can be declared out of reach without
+     * searching.
+     *
+     * @return The lower bound on the objective value reachable.
+     */
+    public int getReachableLowerBound();
+
+    /**
+     * Retrieves an upper bound on how much a single move can reduce the objective value.
+     * Heuristics use it to derive a lower bound on the number of moves still needed.
+     *
+     * @return The maximum reduction of the objective value achievable by one move.
+     */
+    public int getMaxMoveReduction();
+
+    /**
+     * Retrieves the move that produced this state, when it was built by successor(),
+     * generateSuccessors() or apply(). Initial states, and states whose last move was undone,
+     * return NO_MOVE.
+     *
+     * @return The encoded move that produced the state, or NO_MOVE.
+     */
+    public int getLastMove();
+
+    /**
+     * Describes an encoded move in a human readable form.
+     *
+     * @param move The encoded move.
+     * @return The description of the move.
+     */
+    public String describeMove(int move);
+
 }
@@ -6,11 +6,30 @@ import java.util.*;
  * Implements the IState interface for representing a map of lands. Each state
  * is a configuration of lands with specific borders. This class is used in
  * search algorithms to navigate through the space of possible land configurations.
+ *
+ * The configuration is kept packed (see PackedGrid), a few bits per cell. Each state
+ * carries a 64-bit Zobrist fingerprint, computed from scratch for an initial state and
+ * derived from the parent's with a few XORs for a successor.
+ *
+ * A move swaps a cell with its right or bottom neighbour and is encoded as an int,
+ * (cell index << 1) | direction, with the cell index in row-major order. Moves can be
+ * applied and undone in place, which changes the configuration, the number of borders,
+ * the fingerprint and the depth of the state without allocating anything. Since equals
+ * and hashCode follow the configuration, a state must not be modified while it is held
+ * in a hash-based collection.
  */
 public class LandMap implements IState {
-    private final int[][] landMap;//matrix that represents the map configuration
+    //direction of a move that swaps a cell with its right neighbour
+    public static final int RIGHT = 0;
+    //direction of a move that swaps a cell with its bottom neighbour
+    public static final int DOWN = 1;
+
+    private final PackedGrid grid;//layout of the packed cells, shared with the successors
+    private final long[] cells;//packed colours of the map configuration
+    private long fingerprint;//zobrist fingerprint of the configuration
     private int borders;//number of borders of current configuration
     private int depth;//depth of the configuration in the search space
+    private int lastMove = NO_MOVE;//encoded move that produced the configuration
 
     /**
      * Constructs a LandMap state from a given map configuration. Automatically
@@ -19,9 +38,7 @@ public class LandMap implements IState {
      * @param landMap The initial map configuration.
      */
     public LandMap(int[][] landMap) {
-        this.landMap = landMap;
-        evaluate();
-        depth = 0;
+        this(landMap, 0);
     }
 
     /**
@@ -31,33 +48,79 @@ public class LandMap implements IState {
      * @param depth The depth of the new state.
      */
     public LandMap(int[][] landMap, int depth) {
-        this.landMap = landMap;
+        this.grid = PackedGrid.of(landMap);
+        this.cells = grid.pack(landMap);
+        this.fingerprint = grid.fingerprint(cells);
         evaluate();
         this.depth = depth;
     }
 
+    /**
+     * Builds a LandMap state at depth 0 from cells already packed with the layout of LandMap,
+     * as returned by pack() for a map of the same dimensions and owners. The cells are used
+     * as they are, which lets instances stored in that layout be loaded without unpacking them.
+     *
+     * @param rows Number of rows of the map.
+     * @param cols Number of columns of the map.
+     * @param palette The distinct owners of the map, in increasing order.
+     * @param packed The packed cells, holding for each cell the index of its owner in the palette.
+     * @return The state, which takes ownership of the packed cells.
+     * @throws IllegalArgumentException If the cells do not match the dimensions and owners.
+     */
+    public static LandMap fromPacked(int rows, int cols, int[] palette, long[] packed) {
+        PackedGrid grid = PackedGrid.of(rows, cols, palette);
+        grid.validate(packed);
+        LandMap state = new LandMap(grid, packed, grid.fingerprint(packed), 0, 0, NO_MOVE);
+        state.evaluate();
+        return state;
+    }
+
+    /**
+     * Computes the number of bits each cell takes in the packed layout of a map.
+     *
+     * @param colors The number of distinct owners of the map.
+     * @return The number of bits per cell, a power of two.
+     */
+    public static int bitsPerCell(int colors) {
+        return PackedGrid.bitsPerCell(colors);
+    }
+
+    /**
+     * Constructs a successor LandMap whose number of borders is already known, which
+     * avoids the full scan performed by evaluate().
+     *
+     * @param grid The layout of the packed cells.
+     * @param cells The packed map configuration.
+     * @param fingerprint The fingerprint of the configuration.
+     * @param depth The depth of the new state.
+     * @param borders The number of borders of the configuration.
+     * @param lastMove The encoded move that produced the configuration.
+     */
+    private LandMap(PackedGrid grid, long[] cells, long fingerprint, int depth, int borders, int lastMove) {
+        this.grid = grid;
+        this.cells = cells;
+        this.fingerprint = fingerprint;
+        this.borders = borders;
+        this.depth = depth;
+        this.lastMove = lastMove;
+    }
+
     /**
      * Evaluates the current state, calculating the number of borders based on the
      * land configuration. This method updates the 'borders' field.
      */
     public void evaluate() {
-        this.borders = countBorders();
+        this.borders = grid.countBorders(cells);
     }
 
     /**
-     * Evaluates the current state, calculating the number of borders based on the
-     * land configuration. This method updates the 'borders' field.
+     * Reads the colour index of a cell of this configuration.
+     *
+     * @param cell The row-major index of the cell.
+     * @return The colour index of the cell.
      */
-    private int countBorders() {
-        int borders = 0;
-        for(int row = 0; row < landMap.length; row++)
-            for (int col = 0; col < landMap[row].length; col++) {
-                if (col<landMap[row].length - 1 && landMap[row][col] != landMap[row][col + 1])
-                    borders++;
-                if (row < landMap.length -1 && landMap[row][col] != landMap[row + 1][col])
-                    borders++;
-            }
-        return borders;
+    private int color(int cell) {
+        return grid.get(cells, cell);
     }
 
     public int getObjectiveValue() {
@@ -72,95 +135,275 @@ public class LandMap implements IState {
      * @return A list of successor states.
      */
     public List<IState> generateSuccessors() {
-        List<IState> successors = new LinkedList<>();
-
-        //attempts to swap each cell with its right and bottom neighbors, if such a swap
-        //is valid (i.e., it does not increase the number of borders), then the new state
-        //is added to the list of successors.
-        for(int row = 0; row < landMap.length; row++){
-            for(int col = 0; col < landMap[row].length; col++){
-                //we evaluate the swap with the neighbour to the right
-                if(col < landMap[row].length - 1 && landMap[row][col] != landMap[row][col+1]){
-                    //we try the swap to evaluate if it is valid
-                    if(trySwap(row, col, row, col + 1)){
-                        //if is valid we clone and add to successors
-                        successors.add(new LandMap(cloneMap(), this.getDepth() + 1));
-                        //we revert the swap to original state
-                        revertSwap(row, col, row, col + 1);
-                    }
-                }
-                if(row < landMap.length - 1 && landMap[row][col] != landMap[row + 1][col]){
-                    //we try the swap to evaluate if it is valid
-                    if(trySwap(row, col, row + 1, col)){
-                        //if is valid we clone and add to successors
-                        successors.add(new LandMap(cloneMap(), this.getDepth() + 1));
-                        //we revert the swap to original state
-                        revertSwap(row, col, row + 1, col);
-                    }
-                }
-            }
+        List<IState> successors = new ArrayList<>();
+
+        //every valid move (i.e., one that does not increase the number of borders)
+        //gives a successor, built from the variation computed when validating it
+        MoveCursor cursor = new MoveCursor();
+        while(cursor.hasNext()) {
+            int move = cursor.nextInt();
+            successors.add(swappedSuccessor(move, cursor.delta));
         }
 
         return successors;
     }
 
     /**
-    * Attempts a swap between two adjacent territories and evaluates whether this swap
-    * results in a valid new state. It is considered valid if it does not increase the
-    * number of borders.
+     * Returns a lazy iterator over the valid moves of this state, in grid-scan order. Each move
+     * is validated only when the iterator reaches it. Moves may be applied to this state while
+     * iterating, as long as each one is undone before the iterator is used again.
+     *
+     * @return An iterator over the encoded valid moves.
+     */
+    public PrimitiveIterator.OfInt moves() {
+        return new MoveCursor();
+    }
+
+    /**
+     * Applies a valid move in place.
+     *
+     * @param move The encoded move.
+     */
+    public void apply(int move) {
+        swapInPlace(move);
+        depth++;
+        lastMove = move;
+    }
+
+    /**
+     * Undoes, in place, the last move applied to this state.
+     *
+     * @param move The encoded move that was applied.
+     */
+    public void undo(int move) {
+        //a swap is its own inverse
+        swapInPlace(move);
+        depth--;
+        lastMove = NO_MOVE;
+    }
+
+    /**
+     * Builds the successor obtained by applying a valid move, leaving this state unchanged.
+     *
+     * @param move The encoded move.
+     * @return The successor state.
+     */
+    public IState successor(int move) {
+        return swappedSuccessor(move, swapDelta(move >>> 1, partnerOf(move)));
+    }
+
+    /**
+     * Creates an independent copy of this state, which is not affected by moves applied to this one.
+     *
+     * @return The copy of the state.
+     */
+    public IState copy() {
+        return new LandMap(grid, cells.clone(), fingerprint, depth, borders, lastMove);
+    }
+
+    /**
+     * Packs the configuration, returning a copy of the packed cells.
+     *
+     * @return The packed configuration.
+     */
+    public long[] pack() {
+        return cells.clone();
+    }
+
+    /**
+     * Rebuilds a state sharing the layout of this one from packed cells, computing its
+     * fingerprint and number of borders from scratch.
+     *
+     * @param packed Cells packed by a state of the same map.
+     * @param depth The depth of the rebuilt state.
+     * @return The rebuilt state.
+     */
+    public IState unpack(long[] packed, int depth) {
+        if(packed.length != cells.length)
+            throw new IllegalArgumentException("The packed cells do not belong to this map");
+        long[] unpacked = packed.clone();
+        LandMap state = new LandMap(grid, unpacked, grid.fingerprint(unpacked), depth, 0, NO_MOVE);
+        state.evaluate();
+        return state;
+    }
+
+    /**
+     * Returns the index of the cell a move swaps with the cell it is encoded with.
+     *
+     * @param move The encoded move.
+     * @return The row-major index of the neighbour.
+     */
+    private int partnerOf(int move) {
+        return (move >>> 1) + ((move & 1) == RIGHT ? 1 : grid.cols);
+    }
+
+    /**
+     * Swaps the two cells of a move in the current configuration, updating the number of
+     * borders and the fingerprint.
+     *
+     * @param move The encoded move.
+     */
+    private void swapInPlace(int move) {
+        int cell1 = move >>> 1;
+        int cell2 = partnerOf(move);
+        int color1 = color(cell1);
+        int color2 = color(cell2);
+
+        borders += swapDelta(cell1, cell2);
+        grid.set(cells, cell1, color2);
+        grid.set(cells, cell2, color1);
+        fingerprint ^= grid.key(cell1, color1) ^ grid.key(cell1, color2)
+                ^ grid.key(cell2, color2) ^ grid.key(cell2, color1);
+    }
+
+    /**
+    * Computes the variation in the number of borders that swapping two adjacent territories
+    * would cause, without performing the swap. Only the edges around the two cells can change
+    * (at most three for each cell, the edge they share is unaffected by the swap), so the
+    * variation is obtained in constant time instead of recounting the whole map.
     *
-    * @param row1 Row index of the first cell.
-    * @param col1 Column index of the first cell.
-    * @param row2 Row index of the second cell.
-    * @param col2 Column index of the second cell.
-    * @return True if the swap results in a valid new state, otherwise false.
-    * The swap is temporary and is meant to be evaluated for its impact on the objective value.
+    * @param cell1 Row-major index of the first cell.
+    * @param cell2 Row-major index of the second cell.
+    * @return The number of borders after the swap minus the number of borders before it.
     */
-    private boolean trySwap(int row1, int col1, int row2, int col2){
-        //we do the swap
-        int tmp = landMap[row1][col1];
-        landMap[row1][col1] = landMap[row2][col2];
-        landMap[row2][col2] = tmp;
-
-        //we count the borders after the swap
-        int newBorders = countBorders();
-
-        //if the number of borders increases, revert the swap and return false.
-        if(newBorders>this.borders){
-            revertSwap(row1, col1, row2, col2);
-            return false;
-        }
+    private int swapDelta(int cell1, int cell2){
+        int color1 = color(cell1);
+        int color2 = color(cell2);
 
-        //if the swap doesn't increase borders it is considered valid
-        return true;
+        //borders around both cells with their current colours and with the colours exchanged
+        int before = localBorders(cell1, cell2, color1) + localBorders(cell2, cell1, color2);
+        int after = localBorders(cell1, cell2, color2) + localBorders(cell2, cell1, color1);
+
+        return after - before;
     }
 
     /**
-     * Reverts a swap between two cells to restore the original configuration.
-     * This method is used after a swap is evaluated for its validity.
+     * Counts the borders a cell would have with its neighbours if it held the given colour,
+     * ignoring the neighbour it is being swapped with.
      *
-     * @param row1 Row index of the first cell.
-     * @param col1 Column index of the first cell.
-     * @param row2 Row index of the second cell.
-     * @param col2 Column index of the second cell.
+     * @param cell Row-major index of the cell.
+     * @param excluded Row-major index of the neighbour to ignore.
+     * @param color The colour assumed for the cell.
+     * @return The number of borders around the cell.
      */
-    private void revertSwap(int row1, int col1, int row2, int col2) {
-        //we simply revert the swap
-        int tmp = landMap[row1][col1];
-        landMap[row1][col1] = landMap[row2][col2];
-        landMap[row2][col2] = tmp;
+    private int localBorders(int cell, int excluded, int color) {
+        int borders = 0;
+        int col = cell % grid.cols;
+        if(cell >= grid.cols && cell - grid.cols != excluded && color(cell - grid.cols) != color)
+            borders++;
+        if(cell + grid.cols < grid.cells && cell + grid.cols != excluded && color(cell + grid.cols) != color)
+            borders++;
+        if(col > 0 && cell - 1 != excluded && color(cell - 1) != color)
+            borders++;
+        if(col < grid.cols - 1 && cell + 1 != excluded && color(cell + 1) != color)
+            borders++;
+        return borders;
     }
 
     /**
-     * Creates a deep copy of the current land map configuration.
-     * This method is used when a valid new state is found, to create a new LandMap instance for the successor.
+     * Builds the successor obtained by swapping two adjacent territories. The swap is done on
+     * a copy of the packed cells, and the successor's number of borders and fingerprint are
+     * derived from the current ones.
+     *
+     * @param move The encoded move swapping the two territories.
+     * @param delta The variation of borders caused by the swap.
+     * @return The successor state.
+     */
+    private LandMap swappedSuccessor(int move, int delta) {
+        int cell1 = move >>> 1;
+        int cell2 = partnerOf(move);
+        long[] successorCells = cells.clone();
+        //we do the swap on the copy
+        int color1 = color(cell1);
+        int color2 = color(cell2);
+        grid.set(successorCells, cell1, color2);
+        grid.set(successorCells, cell2, color1);
+
+        //the keys of the old colours are removed and the keys of the new ones added
+        long successorFingerprint = fingerprint
+                ^ grid.key(cell1, color1) ^ grid.key(cell1, color2)
+                ^ grid.key(cell2, color2) ^ grid.key(cell2, color1);
+
+        return new LandMap(grid, successorCells, successorFingerprint, this.getDepth() + 1, this.borders + delta, move);
+    }
+
+    /**
+     * Iterates over the valid moves of the state, scanning the cells in row-major order and
+     * trying for each the swap with its right and then its bottom neighbour. A move is valid
+     * if the two cells have different owners and the swap does not increase the number of borders.
+     */
+    private class MoveCursor implements PrimitiveIterator.OfInt {
+        private int candidate = -1;//encoded move examined last
+        private boolean ready;//whether candidate is a valid move not yet returned
+        int delta;//variation of borders of the move returned last
+
+        @Override
+        public boolean hasNext() {
+            if(ready)
+                return true;
+
+            int limit = grid.cells << 1;
+            while(++candidate < limit) {
+                int cell = candidate >>> 1;
+                int partner;
+                if((candidate & 1) == RIGHT) {
+                    //we evaluate the swap with the neighbour to the right
+                    if(cell % grid.cols == grid.cols - 1)
+                        continue;
+                    partner = cell + 1;
+                } else {
+                    //we evaluate the swap with the neighbour below
+                    if(cell + grid.cols >= grid.cells)
+                        continue;
+                    partner = cell + grid.cols;
+                }
+
+                if(color(cell) != color(partner)) {
+                    //we compute the variation of borders caused by the swap
+                    int variation = swapDelta(cell, partner);
+                    if(variation <= 0) {
+                        delta = variation;
+                        ready = true;
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int nextInt() {
+            if(!hasNext())
+                throw new NoSuchElementException();
+            ready = false;
+            return candidate;
+        }
+    }
+
+    /**
+     * Creates a deep copy of the current land map configuration, unpacked to a matrix of owners.
      *
      * @return A new 2D array that is a deep copy of the current land map configuration.
      */
     public int[][] cloneMap() {
-        return Arrays.stream(this.landMap)
-                     .map(int[]::clone)
-                     .toArray(int[][]::new);
+        return grid.unpack(cells);
+    }
+
+    public int getRows() {
+        return grid.rows;
+    }
+
+    public int getCols() {
+        return grid.cols;
+    }
+
+    /**
+     * Retrieves the distinct owners of the map, the packed cells holding indices into them.
+     *
+     * @return The owners, in increasing order.
+     */
+    public int[] getPalette() {
+        return grid.palette();
     }
 
     /**
@@ -173,9 +416,83 @@ public class LandMap implements IState {
         return depth;
     }
 
+    /**
+     * Retrieves the Zobrist fingerprint of the configuration.
+     *
+     * @return The 64-bit fingerprint of the state.
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Retrieves the fingerprint of the canonical form of the configuration: the owners are
+     * relabelled by order of first appearance and the smallest fingerprint over the mirrors and
+     * rotations of the grid is kept. Neither changes the number of borders, and both map the
+     * valid moves of a configuration onto the valid moves of the transformed one. Unlike the
+     * plain fingerprint it is computed from scratch, in time proportional to the number of cells.
+     *
+     * @return The 64-bit canonical fingerprint of the state.
+     */
+    public long getCanonicalFingerprint() {
+        return grid.canonicalFingerprint(cells);
+    }
+
+    /**
+     * Retrieves the fingerprint of the dimensions of the map.
+     *
+     * @return The 64-bit fingerprint of the shape of the map.
+     */
+    public long getLayoutFingerprint() {
+        return grid.layoutFingerprint;
+    }
+
+    /**
+     * Retrieves a lower bound on the number of borders of any configuration with the same
+     * number of cells of each owner, which includes every configuration reachable by swaps.
+     *
+     * @return The lower bound on the borders reachable.
+     */
+    public int getReachableLowerBound() {
+        return grid.bordersLowerBound(cells);
+    }
+
+    /**
+     * Retrieves the maximum number of borders a single swap can remove on this map,
+     * which depends only on its dimensions.
+     *
+     * @return The maximum reduction of borders caused by one swap.
+     */
+    public int getMaxMoveReduction() {
+        return grid.maxSwapReduction;
+    }
+
+    /**
+     * Retrieves the move that produced this state, NO_MOVE for an initial state or after an undo.
+     *
+     * @return The encoded move that produced the state, or NO_MOVE.
+     */
+    public int getLastMove() {
+        return lastMove;
+    }
+
+    /**
+     * Describes a move by the row and column, counted from 1, of the two cells it swaps.
+     *
+     * @param move The encoded move.
+     * @return The description of the move, such as "(1,2)<->(1,3)".
+     */
+    public String describeMove(int move) {
+        int cell1 = move >>> 1;
+        int cell2 = partnerOf(move);
+        return String.format("(%d,%d)<->(%d,%d)", cell1 / grid.cols + 1, cell1 % grid.cols + 1,
+                cell2 / grid.cols + 1, cell2 % grid.cols + 1);
+    }
+
     /**
      * Checks if this LandMap is equal to another object.
-     * Two LandMaps are considered equal if their configurations (landMap arrays) are deeply equal.
+     * Two LandMaps are considered equal if their configurations are equal, which is checked
+     * by comparing the fingerprints first and then the packed cells word by word.
      *
      * @param o The object to compare with this LandMap.
      * @return True if the objects are equal, false otherwise.
@@ -185,18 +502,20 @@ public class LandMap implements IState {
         if (this == o) return true;
         if (!(o instanceof LandMap)) return false;
         LandMap landMap = (LandMap) o;
-        return Arrays.deepEquals(this.landMap, landMap.landMap);
+        return fingerprint == landMap.fingerprint
+                && grid.isCompatible(landMap.grid)
+                && Arrays.equals(cells, landMap.cells);
     }
 
     /**
      * Generates a hash code for this LandMap.
-     * The hash code is based on the deep contents of the landMap array.
+     * The hash code is folded from the Zobrist fingerprint of the configuration.
      *
      * @return A hash code for this LandMap.
      * */
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(landMap);
+        return (int) (fingerprint ^ (fingerprint >>> 32));
     }
 
 }
\ No newline at end of file
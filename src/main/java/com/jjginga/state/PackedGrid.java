@@ -0,0 +1,462 @@
+package com.jjginga.state;
+
+import java.util.Arrays;
+
+/**
+ * Describes how the cells of a map are packed into an array of longs. Owners are
+ * relabelled to dense colour indices (0 to K-1) and each cell takes a power of two
+ * number of bits large enough to hold K colours, so that locating a cell only needs
+ * shifts and masks. A single instance is shared by a state and all of its successors.
+ *
+ * The layout also holds the Zobrist keys, one random 64-bit key per (cell, colour) pair.
+ * The fingerprint of a configuration is the XOR of the keys of its cells, so swapping two
+ * cells changes it by XOR-ing four keys. The keys are derived from the (cell, colour) pair
+ * alone, which keeps fingerprints stable across layouts and runs.
+ *
+ * Borders are counted on the packed words directly, several cells at a time (see countBorders).
+ *
+ * Finally the layout lists the symmetries of the grid, the mirrors and rotations that map it
+ * onto itself, which are used to compute canonical fingerprints.
+ */
+final class PackedGrid {
+    final int rows;//number of rows of the map
+    final int cols;//number of columns of the map
+    final int cells;//total number of cells
+    final int words;//number of longs needed to hold all the cells
+    final int maxSwapReduction;//maximum number of borders a single swap can remove
+    final long layoutFingerprint;//fingerprint of the dimensions, distinguishing maps of different shapes
+
+    private final int bitShift;//log2 of the number of bits per cell
+    private final int cellShift;//log2 of the number of cells per word
+    private final int cellMask;//cells per word - 1
+    private final long colorMask;//mask of the bits of a single cell
+    private final long laneMask;//lowest bit of every cell of a word
+    private final int[] palette;//sorted distinct owners, the colour index is the position in the palette
+    private final long[] zobrist;//random key of each (cell, colour) pair, indexed by cell * colours + colour
+    private final int[][] symmetries;//for each symmetry, the cell moved to each position
+
+    private PackedGrid(int rows, int cols, int[] palette) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = rows * cols;
+        this.palette = palette;
+
+        int bits = bitsPerCell(palette.length);
+        this.bitShift = Integer.numberOfTrailingZeros(bits);
+        this.cellShift = 6 - bitShift;
+        this.cellMask = (1 << cellShift) - 1;
+        this.colorMask = (1L << bits) - 1;
+        long lanes = 0;
+        for(int bit = 0; bit < Long.SIZE; bit += bits)
+            lanes |= 1L << bit;
+        this.laneMask = lanes;
+        this.words = (cells + cellMask) >>> cellShift;
+        this.maxSwapReduction = maxSwapReduction(rows, cols);
+        //the complement keeps the input away from the ones of the zobrist keys
+        this.layoutFingerprint = mix(~((long) rows << 32 | cols));
+
+        this.zobrist = new long[cells * palette.length];
+        for(int cell = 0; cell < cells; cell++)
+            for(int color = 0; color < palette.length; color++)
+                zobrist[cell * palette.length + color] = mix(((long) cell << 32 | color) + 1);
+        this.symmetries = symmetries(rows, cols);
+    }
+
+    /**
+     * Computes the number of bits taken by each cell: the smallest power of two number of bits
+     * able to represent every colour.
+     *
+     * @param colors The number of distinct owners of the map.
+     * @return The number of bits per cell, from 1 to 32.
+     */
+    static int bitsPerCell(int colors) {
+        int bits = 1;
+        while(bits < 32 && (1L << bits) < colors)
+            bits <<= 1;
+        return bits;
+    }
+
+    /**
+     * Lists the symmetries of a grid as permutations of its cells: the identity, the two mirrors
+     * and the half turn, plus the quarter turns and the diagonal mirrors when the grid is square.
+     *
+     * @param rows Number of rows of the map.
+     * @param cols Number of columns of the map.
+     * @return For each symmetry, the row-major index of the cell moved to each position.
+     */
+    private static int[][] symmetries(int rows, int cols) {
+        int count = rows == cols ? 8 : 4;
+        int[][] symmetries = new int[count][rows * cols];
+        for(int row = 0; row < rows; row++)
+            for(int col = 0; col < cols; col++) {
+                int position = row * cols + col;
+                symmetries[0][position] = position;
+                symmetries[1][position] = row * cols + (cols - 1 - col);
+                symmetries[2][position] = (rows - 1 - row) * cols + col;
+                symmetries[3][position] = (rows - 1 - row) * cols + (cols - 1 - col);
+                if(count == 8) {
+                    symmetries[4][position] = col * cols + row;
+                    symmetries[5][position] = (cols - 1 - col) * cols + (rows - 1 - row);
+                    symmetries[6][position] = (cols - 1 - col) * cols + row;
+                    symmetries[7][position] = col * cols + (rows - 1 - row);
+                }
+            }
+        return symmetries;
+    }
+
+    /**
+     * Computes how many borders a single swap can remove at most. Only the edges around the
+     * two cells change, except the one they share, so the bound is the largest number of
+     * such edges over all pairs of adjacent cells: 6 for maps of at least 3x4, fewer for
+     * narrower ones.
+     *
+     * @param rows Number of rows of the map.
+     * @param cols Number of columns of the map.
+     * @return The maximum reduction of borders caused by one swap.
+     */
+    private static int maxSwapReduction(int rows, int cols) {
+        int max = 0;
+        for(int row = 0; row < rows; row++)
+            for(int col = 0; col < cols; col++) {
+                if(col < cols - 1)
+                    max = Math.max(max, degree(row, col, rows, cols) + degree(row, col + 1, rows, cols) - 2);
+                if(row < rows - 1)
+                    max = Math.max(max, degree(row, col, rows, cols) + degree(row + 1, col, rows, cols) - 2);
+            }
+        return max;
+    }
+
+    /**
+     * Counts the neighbours of a cell.
+     *
+     * @param row Row index of the cell.
+     * @param col Column index of the cell.
+     * @param rows Number of rows of the map.
+     * @param cols Number of columns of the map.
+     * @return The number of cells sharing a side with the cell.
+     */
+    private static int degree(int row, int col, int rows, int cols) {
+        return (row > 0 ? 1 : 0) + (row < rows - 1 ? 1 : 0) + (col > 0 ? 1 : 0) + (col < cols - 1 ? 1 : 0);
+    }
+
+    /**
+     * SplitMix64 finalizer, used to derive well distributed keys from consecutive indices.
+     *
+     * @param z The value to mix.
+     * @return The mixed value.
+     */
+    private static long mix(long z) {
+        z *= 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Builds the layout for a map configuration, collecting its distinct owners.
+     *
+     * @param landMap The map configuration, which must be rectangular.
+     * @return The layout able to pack the given map.
+     */
+    static PackedGrid of(int[][] landMap) {
+        if(landMap.length == 0 || landMap[0].length == 0)
+            throw new IllegalArgumentException("The map must have at least one cell");
+
+        int cols = landMap[0].length;
+        for(int[] row : landMap)
+            if(row.length != cols)
+                throw new IllegalArgumentException("All the rows of the map must have the same length");
+
+        int[] palette = Arrays.stream(landMap)
+                              .flatMapToInt(Arrays::stream)
+                              .distinct()
+                              .sorted()
+                              .toArray();
+        return new PackedGrid(landMap.length, cols, palette);
+    }
+
+    /**
+     * Builds the layout for maps of given dimensions and owners.
+     *
+     * @param rows Number of rows of the map.
+     * @param cols Number of columns of the map.
+     * @param palette The distinct owners of the map, in increasing order.
+     * @return The layout able to pack such maps.
+     */
+    static PackedGrid of(int rows, int cols, int[] palette) {
+        if(rows <= 0 || cols <= 0)
+            throw new IllegalArgumentException("The map must have at least one cell");
+        if(palette.length == 0)
+            throw new IllegalArgumentException("The map must have at least one owner");
+        for(int i = 1; i < palette.length; i++)
+            if(palette[i] <= palette[i - 1])
+                throw new IllegalArgumentException("The owners must be distinct and in increasing order");
+        return new PackedGrid(rows, cols, palette.clone());
+    }
+
+    /**
+     * Checks that packed cells were produced by this layout: the right number of words, every
+     * colour index within the palette and the unused bits of the last word cleared.
+     *
+     * @param packed The packed cells.
+     * @throws IllegalArgumentException If the cells cannot belong to this layout.
+     */
+    void validate(long[] packed) {
+        if(packed.length != words)
+            throw new IllegalArgumentException("Expected " + words + " packed words, found " + packed.length);
+        for(int cell = 0; cell < cells; cell++)
+            if(get(packed, cell) >= palette.length)
+                throw new IllegalArgumentException("Cell " + cell + " has no owner in the palette");
+        int usedBits = (cells & cellMask) << bitShift;
+        if(usedBits != 0 && packed[words - 1] >>> usedBits != 0)
+            throw new IllegalArgumentException("The padding after the last cell is not cleared");
+    }
+
+    /**
+     * Packs a map configuration using this layout.
+     *
+     * @param landMap The map configuration.
+     * @return The packed cells.
+     */
+    long[] pack(int[][] landMap) {
+        long[] packed = new long[words];
+        for(int row = 0; row < rows; row++)
+            for(int col = 0; col < cols; col++) {
+                int color = Arrays.binarySearch(palette, landMap[row][col]);
+                if(color < 0)
+                    throw new IllegalArgumentException("Owner " + landMap[row][col] + " is not part of the layout");
+                set(packed, row * cols + col, color);
+            }
+        return packed;
+    }
+
+    /**
+     * Unpacks the cells back to a matrix of owners.
+     *
+     * @param packed The packed cells.
+     * @return A new matrix with the owner of each cell.
+     */
+    int[][] unpack(long[] packed) {
+        int[][] landMap = new int[rows][cols];
+        for(int row = 0; row < rows; row++)
+            for(int col = 0; col < cols; col++)
+                landMap[row][col] = palette[get(packed, row * cols + col)];
+        return landMap;
+    }
+
+    /**
+     * Reads the colour index of a cell.
+     *
+     * @param packed The packed cells.
+     * @param cell The row-major index of the cell.
+     * @return The colour index of the cell.
+     */
+    int get(long[] packed, int cell) {
+        return (int) ((packed[cell >>> cellShift] >>> ((cell & cellMask) << bitShift)) & colorMask);
+    }
+
+    /**
+     * Writes the colour index of a cell.
+     *
+     * @param packed The packed cells.
+     * @param cell The row-major index of the cell.
+     * @param color The colour index to write.
+     */
+    void set(long[] packed, int cell, int color) {
+        int shift = (cell & cellMask) << bitShift;
+        int word = cell >>> cellShift;
+        packed[word] = (packed[word] & ~(colorMask << shift)) | ((long) color << shift);
+    }
+
+    /**
+     * Counts the borders of a configuration, the pairs of neighbouring cells with different
+     * colours. The row-major sequence of cells is compared with itself shifted by one cell,
+     * which pairs each cell with its right neighbour, and shifted by a row, which pairs it with
+     * the one below. Both comparisons are made a word at a time, 64 / bitsPerCell cells at once:
+     * XOR-ing a word with the shifted one leaves non-zero bits exactly in the cells that differ,
+     * which are then counted with a population count. The shift by one cell also pairs the last
+     * cell of each row with the first of the next one, which are not neighbours and are
+     * discounted afterwards, one comparison per row.
+     *
+     * @param packed The packed cells.
+     * @return The number of borders of the configuration.
+     */
+    int countBorders(long[] packed) {
+        int borders = differingPairs(packed, 1, cells - 1) + differingPairs(packed, cols, cells - cols);
+        for(int row = 1; row < rows; row++)
+            if(get(packed, row * cols - 1) != get(packed, row * cols))
+                borders--;
+        return borders;
+    }
+
+    /**
+     * Counts the cells that differ from the cell a given distance after them.
+     *
+     * @param packed The packed cells.
+     * @param distance The distance between the cells compared, in cells.
+     * @param pairs The number of cells compared, from the first one.
+     * @return The number of cells i below pairs whose colour differs from the colour of cell i + distance.
+     */
+    private int differingPairs(long[] packed, int distance, int pairs) {
+        if(pairs <= 0)
+            return 0;
+        long shift = (long) distance << bitShift;
+        int wordShift = (int) (shift >>> 6);
+        int bitShiftInWord = (int) (shift & 63);
+
+        int count = 0;
+        int fullWords = pairs >>> cellShift;
+        for(int word = 0; word < fullWords; word++)
+            count += differingCells(packed[word] ^ shifted(packed, word + wordShift, bitShiftInWord));
+
+        //only the first cells of the last word are compared
+        int rest = pairs & cellMask;
+        if(rest != 0) {
+            long difference = packed[fullWords] ^ shifted(packed, fullWords + wordShift, bitShiftInWord);
+            count += differingCells(difference & ((1L << (rest << bitShift)) - 1));
+        }
+        return count;
+    }
+
+    /**
+     * Reads the 64 bits of the packed cells starting at a bit offset of a word.
+     *
+     * @param packed The packed cells.
+     * @param word The index of the word.
+     * @param bit The offset in the word, from 0 to 63.
+     * @return The bits, the ones past the last word being 0.
+     */
+    private static long shifted(long[] packed, int word, int bit) {
+        long low = word < packed.length ? packed[word] : 0;
+        if(bit == 0)
+            return low;
+        long high = word + 1 < packed.length ? packed[word + 1] : 0;
+        return (low >>> bit) | (high << (Long.SIZE - bit));
+    }
+
+    /**
+     * Counts the cells of a word holding a non-zero value, by folding the bits of each cell onto
+     * its lowest bit.
+     *
+     * @param word The word.
+     * @return The number of non-zero cells.
+     */
+    private int differingCells(long word) {
+        int bits = 1 << bitShift;
+        for(int fold = 1; fold < bits; fold <<= 1)
+            word |= word >>> fold;
+        return Long.bitCount(word & laneMask);
+    }
+
+    /**
+     * Computes a lower bound on the borders of any configuration with the same number of cells
+     * of each colour. A set of n cells spanning h rows and w columns has at least 2 boundary edges
+     * per row and per column it spans, out of the 4n sides of its cells, so at most 2n - h - w
+     * edges join two of its cells, with h * w >= n, h <= rows and w <= cols. Summing over the
+     * colours bounds the edges that are not borders; the grid has 2 * cells - rows - cols edges,
+     * so there are at least the sum over the colours of min(h + w), minus rows + cols, borders.
+     *
+     * @param packed The packed cells.
+     * @return The lower bound on the number of borders.
+     */
+    int bordersLowerBound(long[] packed) {
+        int[] counts = new int[palette.length];
+        for(int cell = 0; cell < cells; cell++)
+            counts[get(packed, cell)]++;
+
+        int bound = -rows - cols;
+        for(int count : counts) {
+            if(count == 0)
+                continue;
+            //smallest half perimeter of a box of the grid holding count cells
+            int halfPerimeter = Integer.MAX_VALUE;
+            for(int height = 1; height <= Math.min(rows, count); height++) {
+                int width = (count + height - 1) / height;
+                if(width <= cols)
+                    halfPerimeter = Math.min(halfPerimeter, height + width);
+            }
+            bound += halfPerimeter;
+        }
+        return Math.max(0, bound);
+    }
+
+    /**
+     * Computes the Zobrist fingerprint of a configuration from scratch.
+     *
+     * @param packed The packed cells.
+     * @return The fingerprint of the configuration.
+     */
+    long fingerprint(long[] packed) {
+        long fingerprint = 0;
+        for(int cell = 0; cell < cells; cell++)
+            fingerprint ^= key(cell, get(packed, cell));
+        return fingerprint;
+    }
+
+    /**
+     * Computes a fingerprint shared by all the configurations that only differ by a symmetry of
+     * the grid or by a relabelling of the owners. For each symmetry, the cells are read in the
+     * transformed order and their colours relabelled by order of first appearance, and the
+     * fingerprint of that sequence is computed; the canonical fingerprint is the smallest one.
+     *
+     * @param packed The packed cells.
+     * @return The canonical fingerprint of the configuration.
+     */
+    long canonicalFingerprint(long[] packed) {
+        int[] labels = new int[palette.length];
+        long canonical = Long.MAX_VALUE;
+        for(int[] symmetry : symmetries) {
+            Arrays.fill(labels, -1);
+            int nextLabel = 0;
+            long fingerprint = 0;
+            for(int position = 0; position < cells; position++) {
+                int color = get(packed, symmetry[position]);
+                if(labels[color] < 0)
+                    labels[color] = nextLabel++;
+                fingerprint ^= key(position, labels[color]);
+            }
+            canonical = Math.min(canonical, fingerprint);
+        }
+        return canonical;
+    }
+
+    /**
+     * Returns the Zobrist key of a cell holding a colour.
+     *
+     * @param cell The row-major index of the cell.
+     * @param color The colour index.
+     * @return The key of the pair.
+     */
+    long key(int cell, int color) {
+        return zobrist[cell * palette.length + color];
+    }
+
+    /**
+     * Returns the number of distinct owners of the map.
+     *
+     * @return The number of colours.
+     */
+    int colors() {
+        return palette.length;
+    }
+
+    /**
+     * Returns the distinct owners of the map, in increasing order.
+     *
+     * @return A copy of the palette.
+     */
+    int[] palette() {
+        return palette.clone();
+    }
+
+    /**
+     * Checks whether two layouts pack maps in the same way, so that their packed cells can be compared word by word.
+     *
+     * @param other The other layout.
+     * @return True if both layouts have the same dimensions and owners.
+     */
+    boolean isCompatible(PackedGrid other) {
+        return this == other
+                || (rows == other.rows && cols == other.cols && Arrays.equals(palette, other.palette));
+    }
+}
@@ -0,0 +1,204 @@
+package com.jjginga.visited;
+
+/**
+ * Open-addressing hash set of 64-bit fingerprints with linear probing. The slots are kept in
+ * a flat array of longs whose storage is provided by the subclasses, so that no object is
+ * allocated per element. A slot holding 0 is empty, the fingerprint 0 itself is tracked by
+ * a separate flag.
+ */
+public abstract class AbstractFingerprintSet implements IVisitedSet {
+
+    //default number of slots of a new set
+    protected static final int DEFAULT_CAPACITY = 1 << 10;
+    //maximum fraction of occupied slots before the table grows
+    private static final double MAX_LOAD = 0.6;
+
+    private int shift;//64 - log2 of the number of slots
+    private int mask;//number of slots - 1
+    private int threshold;//number of elements that triggers the next resize
+    private long size;//number of fingerprints stored in the slots
+    private boolean containsZero;//whether the fingerprint 0 was added
+
+    /**
+     * Constructs a set able to hold the given number of fingerprints before growing.
+     *
+     * @param expectedSize The expected number of fingerprints.
+     */
+    protected AbstractFingerprintSet(int expectedSize) {
+        int capacity = Integer.highestOneBit((int) Math.min(1 << 30, Math.max(DEFAULT_CAPACITY, expectedSize / MAX_LOAD)) - 1) << 1;
+        allocate(capacity);
+        resize(capacity);
+    }
+
+    /**
+     * Replaces the storage with a new one with the given number of slots, all of them empty.
+     * The replaced storage stays readable through previousSlot until releasePrevious is called,
+     * so that a resize can rehash straight from it.
+     *
+     * @param capacity The number of slots, a power of two.
+     */
+    protected abstract void allocate(int capacity);
+
+    /**
+     * Reads a slot of the storage replaced by the last allocation.
+     *
+     * @param index The index of the slot.
+     * @return The fingerprint in the slot, or 0 if it is empty.
+     */
+    protected abstract long previousSlot(int index);
+
+    /**
+     * Drops the storage replaced by the last allocation, once its fingerprints were rehashed.
+     */
+    protected abstract void releasePrevious();
+
+    /**
+     * Reads a slot of the current storage.
+     *
+     * @param index The index of the slot.
+     * @return The fingerprint in the slot, or 0 if it is empty.
+     */
+    protected abstract long slot(int index);
+
+    /**
+     * Writes a slot of the current storage.
+     *
+     * @param index The index of the slot.
+     * @param fingerprint The fingerprint to store.
+     */
+    protected abstract void setSlot(int index, long fingerprint);
+
+    @Override
+    public boolean add(long fingerprint) {
+        if(fingerprint == 0) {
+            boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+
+        int index = indexOf(fingerprint);
+        long current;
+        while((current = slot(index)) != 0) {
+            if(current == fingerprint)
+                return false;
+            index = (index + 1) & mask;
+        }
+        setSlot(index, fingerprint);
+
+        if(++size > threshold)
+            grow();
+        return true;
+    }
+
+    @Override
+    public boolean contains(long fingerprint) {
+        if(fingerprint == 0)
+            return containsZero;
+
+        int index = indexOf(fingerprint);
+        long current;
+        while((current = slot(index)) != 0) {
+            if(current == fingerprint)
+                return true;
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a fingerprint from the set. The following entries of the probe sequence are
+     * shifted back, so the table never holds deletion markers.
+     *
+     * @param fingerprint The fingerprint to remove.
+     * @return True if the fingerprint was in the set.
+     */
+    public boolean remove(long fingerprint) {
+        if(fingerprint == 0) {
+            boolean removed = containsZero;
+            containsZero = false;
+            return removed;
+        }
+
+        int index = indexOf(fingerprint);
+        long current;
+        while((current = slot(index)) != fingerprint) {
+            if(current == 0)
+                return false;
+            index = (index + 1) & mask;
+        }
+
+        //backward shift deletion: move back every entry whose ideal slot is not after the hole
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while((current = slot(next)) != 0) {
+            int ideal = indexOf(current);
+            if(((next - ideal) & mask) >= ((next - hole) & mask)) {
+                setSlot(hole, current);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        setSlot(hole, 0);
+        size--;
+        return true;
+    }
+
+    @Override
+    public long size() {
+        return size + (containsZero ? 1 : 0);
+    }
+
+    /**
+     * Retrieves the number of slots of the table.
+     *
+     * @return The current capacity.
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Computes the home slot of a fingerprint. Fingerprints are already well distributed,
+     * the multiplication only protects against weak low bits.
+     *
+     * @param fingerprint The fingerprint.
+     * @return The index of the first slot to probe.
+     */
+    private int indexOf(long fingerprint) {
+        return (int) ((fingerprint * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /**
+     * Doubles the number of slots, rehashing every fingerprint straight from the previous
+     * storage into the new one, without copying them anywhere else.
+     */
+    private void grow() {
+        int oldCapacity = capacity();
+        if(oldCapacity == 1 << 30)
+            throw new IllegalStateException("Visited set is full");
+
+        allocate(oldCapacity << 1);
+        resize(oldCapacity << 1);
+        for(int oldIndex = 0; oldIndex < oldCapacity; oldIndex++) {
+            long fingerprint = previousSlot(oldIndex);
+            if(fingerprint == 0)
+                continue;
+            int index = indexOf(fingerprint);
+            while(slot(index) != 0)
+                index = (index + 1) & mask;
+            setSlot(index, fingerprint);
+        }
+        releasePrevious();
+    }
+
+    /**
+     * Updates the derived sizes of the table after allocating the given number of slots.
+     *
+     * @param capacity The number of slots, a power of two.
+     */
+    private void resize(int capacity) {
+        this.mask = capacity - 1;
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        this.threshold = (int) (capacity * MAX_LOAD);
+    }
+}
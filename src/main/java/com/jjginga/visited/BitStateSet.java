@@ -0,0 +1,113 @@
+package com.jjginga.visited;
+
+/**
+ * Probabilistic visited set in the style of SPIN's bitstate hashing: a Bloom filter with a
+ * fixed memory budget. Each fingerprint sets k bits of a bit table, chosen by double hashing,
+ * and a fingerprint is considered visited when all of its k bits are set. Memory never grows,
+ * so a search can cover far more states than with an exact set, at the cost of completeness:
+ * a state whose bits were all set by other states is wrongly reported as visited and its
+ * subtree is skipped. There are no false negatives.
+ */
+public class BitStateSet implements IVisitedSet {
+
+    //number of bits set per fingerprint when none is given
+    public static final int DEFAULT_HASH_FUNCTIONS = 3;
+    //largest bit table, in longs
+    private static final int MAX_WORDS = 1 << 30;
+
+    private final long[] bits;//the bit table
+    private final long mask;//number of bits - 1
+    private final int hashFunctions;//number of bits set per fingerprint
+    private long size;//number of fingerprints added
+
+    /**
+     * Constructs an empty set using the default number of hash functions.
+     *
+     * @param memoryBytes The memory budget of the bit table, in bytes.
+     */
+    public BitStateSet(long memoryBytes) {
+        this(memoryBytes, DEFAULT_HASH_FUNCTIONS);
+    }
+
+    /**
+     * Constructs an empty set. The bit table takes the largest power of two number of bits
+     * that fits in the memory budget.
+     *
+     * @param memoryBytes The memory budget of the bit table, in bytes.
+     * @param hashFunctions The number of bits set per fingerprint.
+     */
+    public BitStateSet(long memoryBytes, int hashFunctions) {
+        if(hashFunctions < 1)
+            throw new IllegalArgumentException("At least one hash function is needed");
+        long words = Math.max(1, Math.min(MAX_WORDS, memoryBytes / Long.BYTES));
+        this.bits = new long[(int) Long.highestOneBit(words)];
+        this.mask = ((long) bits.length << 6) - 1;
+        this.hashFunctions = hashFunctions;
+    }
+
+    @Override
+    public boolean add(long fingerprint) {
+        long h1 = fingerprint;
+        long h2 = secondHash(fingerprint);
+        boolean added = false;
+        for(int i = 0; i < hashFunctions; i++) {
+            long bit = (h1 + i * h2) & mask;
+            int word = (int) (bit >>> 6);
+            long flag = 1L << bit;
+            if((bits[word] & flag) == 0) {
+                bits[word] |= flag;
+                added = true;
+            }
+        }
+        if(added)
+            size++;
+        return added;
+    }
+
+    @Override
+    public boolean contains(long fingerprint) {
+        long h1 = fingerprint;
+        long h2 = secondHash(fingerprint);
+        for(int i = 0; i < hashFunctions; i++) {
+            long bit = (h1 + i * h2) & mask;
+            if((bits[(int) (bit >>> 6)] & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the number of fingerprints added, which does not count the states wrongly
+     * reported as visited.
+     *
+     * @return The number of visited states.
+     */
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Estimates the probability that a new fingerprint is wrongly reported as visited, given the
+     * fingerprints added so far: (1 - e^(-kn/m))^k for k hash functions, n fingerprints and m bits.
+     *
+     * @return The current false positive probability.
+     */
+    @Override
+    public double falsePositiveRate() {
+        double filled = 1 - Math.exp(-(double) hashFunctions * size / (mask + 1));
+        return Math.pow(filled, hashFunctions);
+    }
+
+    /**
+     * Derives an odd step for the double hashing from the fingerprint, so that the k positions
+     * of a fingerprint are distinct.
+     *
+     * @param fingerprint The fingerprint.
+     * @return The step between the positions of the fingerprint.
+     */
+    private static long secondHash(long fingerprint) {
+        long z = Long.rotateLeft(fingerprint, 32) * 0xBF58476D1CE4E5B9L;
+        return (z ^ (z >>> 29)) | 1;
+    }
+}
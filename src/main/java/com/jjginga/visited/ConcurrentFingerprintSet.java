@@ -0,0 +1,70 @@
+package com.jjginga.visited;
+
+/**
+ * Thread-safe visited set made of independently locked FingerprintSet stripes. A fingerprint
+ * always goes to the same stripe, chosen from its high bits, so threads only contend when
+ * they touch the same stripe at the same time.
+ */
+public class ConcurrentFingerprintSet implements IVisitedSet {
+
+    private final FingerprintSet[] stripes;//each stripe is also its own lock
+    private final int shift;//64 - log2 of the number of stripes
+
+    /**
+     * Constructs a set with enough stripes for the available processors.
+     */
+    public ConcurrentFingerprintSet() {
+        this(Runtime.getRuntime().availableProcessors() * 8);
+    }
+
+    /**
+     * Constructs a set with at least the given number of stripes.
+     *
+     * @param concurrency The expected number of threads updating the set at the same time.
+     */
+    public ConcurrentFingerprintSet(int concurrency) {
+        int count = Integer.highestOneBit(Math.max(2, concurrency) - 1) << 1;
+        this.stripes = new FingerprintSet[count];
+        this.shift = 64 - Integer.numberOfTrailingZeros(count);
+        for(int i = 0; i < count; i++)
+            stripes[i] = new FingerprintSet();
+    }
+
+    @Override
+    public boolean add(long fingerprint) {
+        FingerprintSet stripe = stripeOf(fingerprint);
+        synchronized(stripe) {
+            return stripe.add(fingerprint);
+        }
+    }
+
+    @Override
+    public boolean contains(long fingerprint) {
+        FingerprintSet stripe = stripeOf(fingerprint);
+        synchronized(stripe) {
+            return stripe.contains(fingerprint);
+        }
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for(FingerprintSet stripe : stripes)
+            synchronized(stripe) {
+                size += stripe.size();
+            }
+        return size;
+    }
+
+    /**
+     * Selects the stripe of a fingerprint. The stripe is taken from a different mix than
+     * the one the stripes use to pick their slots, so each stripe still spreads its
+     * fingerprints over all of its slots.
+     *
+     * @param fingerprint The fingerprint.
+     * @return The stripe holding the fingerprint.
+     */
+    private FingerprintSet stripeOf(long fingerprint) {
+        return stripes[(int) (((fingerprint ^ (fingerprint >>> 29)) * 0xBF58476D1CE4E5B9L) >>> shift)];
+    }
+}
@@ -0,0 +1,55 @@
+package com.jjginga.visited;
+
+/**
+ * Visited set whose slots live in a plain long array on the heap. Each visited state costs
+ * a single long slot (about 13 bytes on average at the maximum load), and the set is one
+ * object for the garbage collector regardless of the number of states.
+ */
+public class FingerprintSet extends AbstractFingerprintSet {
+
+    private long[] slots;//fingerprint of each slot, 0 when empty
+    private long[] previousSlots;//slots replaced by the last allocation, until they are rehashed
+
+    /**
+     * Constructs an empty set with the default capacity.
+     */
+    public FingerprintSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty set able to hold the given number of fingerprints before growing.
+     *
+     * @param expectedSize The expected number of fingerprints.
+     */
+    public FingerprintSet(int expectedSize) {
+        super(expectedSize);
+    }
+
+    @Override
+    protected void allocate(int capacity) {
+        long[] allocated = new long[capacity];
+        previousSlots = slots;
+        slots = allocated;
+    }
+
+    @Override
+    protected long previousSlot(int index) {
+        return previousSlots[index];
+    }
+
+    @Override
+    protected void releasePrevious() {
+        previousSlots = null;
+    }
+
+    @Override
+    protected long slot(int index) {
+        return slots[index];
+    }
+
+    @Override
+    protected void setSlot(int index, long fingerprint) {
+        slots[index] = fingerprint;
+    }
+}
@@ -0,0 +1,42 @@
+package com.jjginga.visited;
+
+/**
+ * Represents the set of states already reached by a search, used for duplicate detection.
+ * States are identified by their 64-bit fingerprint (see IState.getFingerprint()), so the
+ * set never needs to keep the states themselves alive.
+ */
+public interface IVisitedSet {
+
+    /**
+     * Adds a fingerprint to the set.
+     *
+     * @param fingerprint The fingerprint of the state.
+     * @return True if the fingerprint was not yet in the set, false otherwise.
+     */
+    public boolean add(long fingerprint);
+
+    /**
+     * Checks whether a fingerprint is in the set.
+     *
+     * @param fingerprint The fingerprint of the state.
+     * @return True if the fingerprint is in the set.
+     */
+    public boolean contains(long fingerprint);
+
+    /**
+     * Retrieves the number of fingerprints in the set.
+     *
+     * @return The number of visited states.
+     */
+    public long size();
+
+    /**
+     * Estimates the probability that a fingerprint not in the set is reported as present.
+     * Exact sets never do, probabilistic ones trade this risk for memory.
+     *
+     * @return The false positive probability, 0 for an exact set.
+     */
+    public default double falsePositiveRate() {
+        return 0;
+    }
+}
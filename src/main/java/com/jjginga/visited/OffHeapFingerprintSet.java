@@ -0,0 +1,69 @@
+package com.jjginga.visited;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Visited set whose slots live outside the Java heap, in a direct ByteBuffer. The heap only
+ * holds the buffer object, so very large visited sets neither count against the maximum heap
+ * size nor have to be traced by the garbage collector. The native memory is released when
+ * the buffer becomes unreachable.
+ */
+public class OffHeapFingerprintSet extends AbstractFingerprintSet {
+
+    //a direct buffer is limited to 2 GB, which is 2^27 slots since capacities are powers of two
+    private static final long MAX_BYTES = Integer.MAX_VALUE;
+
+    private LongBuffer slots;//fingerprint of each slot, 0 when empty
+    private LongBuffer previousSlots;//slots replaced by the last allocation, until they are rehashed
+
+    /**
+     * Constructs an empty set with the default capacity.
+     */
+    public OffHeapFingerprintSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty set able to hold the given number of fingerprints before growing.
+     *
+     * @param expectedSize The expected number of fingerprints.
+     */
+    public OffHeapFingerprintSet(int expectedSize) {
+        super(expectedSize);
+    }
+
+    @Override
+    protected void allocate(int capacity) {
+        long bytes = (long) capacity * Long.BYTES;
+        if(bytes > MAX_BYTES)
+            throw new IllegalStateException("Visited set is full");
+        LongBuffer allocated = ByteBuffer.allocateDirect((int) bytes)
+                                         .order(ByteOrder.nativeOrder())
+                                         .asLongBuffer();
+        previousSlots = slots;
+        slots = allocated;
+    }
+
+    @Override
+    protected long previousSlot(int index) {
+        return previousSlots.get(index);
+    }
+
+    @Override
+    protected void releasePrevious() {
+        //the native memory of the previous buffer is released once it is collected
+        previousSlots = null;
+    }
+
+    @Override
+    protected long slot(int index) {
+        return slots.get(index);
+    }
+
+    @Override
+    protected void setSlot(int index, long fingerprint) {
+        slots.put(index, fingerprint);
+    }
+}
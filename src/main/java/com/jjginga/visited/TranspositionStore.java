@@ -0,0 +1,279 @@
+package com.jjginga.visited;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Persistent table of what previous searches proved about states, kept in a memory-mapped file
+ * so that it survives across runs and is shared by every search given the same file. Entries
+ * are keyed by a 64-bit state key and record two independent facts:
+ *
+ * - a lower bound on the number of borders reachable from the state, proven by a search that
+ *   explored everything reachable from it, so that a search for fewer borders can skip it;
+ * - a solution from the state: the number of borders reached, in how many moves, and the first
+ *   move to apply, the next states having their own entries, so that the whole path can be
+ *   followed entry by entry. The number of moves is marked exact when it was found by a
+ *   depth-optimal search for a given objective.
+ *
+ * The file has a fixed size chosen when it is created. Entries are grouped in sets of a few
+ * ways, each key mapping to a single set; when a set is full the entry touched in the oldest
+ * session is evicted, a session starting every time the file is opened. A lost entry only
+ * means that a search has to work again. A single process may use a file at a time, methods
+ * are synchronized so that concurrent searches of that process can share it.
+ */
+public class TranspositionStore implements AutoCloseable {
+
+    //a bound or a distance that is not known
+    public static final int UNKNOWN = -1;
+
+    //entries of each set
+    private static final int WAYS = 4;
+    //first word of the file, "LMAPTTS1" as a long
+    private static final long MAGIC = 0x4C4D415054545331L;
+    //size of the header, before the first entry
+    private static final int HEADER_BYTES = 64;
+    //size of an entry: key, stamp, lower bound, borders, distance, next move, exact objective
+    private static final int ENTRY_BYTES = 32;
+    private static final int KEY = 0, STAMP = 8, LOWER_BOUND = 12, BORDERS = 16, DISTANCE = 20, NEXT_MOVE = 24, EXACT = 28;
+    //offsets of the header fields
+    private static final int HEADER_SETS = 8, HEADER_SESSION = 12;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int sets;//number of sets, a power of two
+    private final int shift;//64 - log2 of the number of sets
+    private final int session;//stamp of the entries touched since the file was opened, never 0
+
+    /**
+     * Opens a store, creating it with at least the given number of entries if the file does not
+     * exist or was created with another size.
+     *
+     * @param path The file of the store.
+     * @param capacity The number of entries of a new store, rounded up to a power of two.
+     * @return The store.
+     */
+    public static TranspositionStore open(Path path, int capacity) {
+        //a mapping is limited to 2 GB
+        if(capacity < 1 || capacity > 1 << 25)
+            throw new IllegalArgumentException("The capacity must be between 1 and 2^25 entries");
+        int entries = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        return new TranspositionStore(path, Math.max(1, entries / WAYS));
+    }
+
+    private TranspositionStore(Path path, int count) {
+        long size = HEADER_BYTES + (long) count * WAYS * ENTRY_BYTES;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean reused = channel.size() == size;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            reused &= buffer.getLong(0) == MAGIC && buffer.getInt(HEADER_SETS) == count;
+            if(!reused) {
+                //a new or incompatible file is cleared
+                channel.truncate(size);
+                for(int position = 0; position < size; position += Long.BYTES)
+                    buffer.putLong(position, 0);
+                buffer.putLong(0, MAGIC);
+                buffer.putInt(HEADER_SETS, count);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.sets = count;
+        this.shift = 64 - Integer.numberOfTrailingZeros(count);
+        this.session = Math.max(1, buffer.getInt(HEADER_SESSION) + 1);
+        buffer.putInt(HEADER_SESSION, session);
+    }
+
+    /**
+     * The facts recorded about a state.
+     */
+    public static final class Entry {
+        private final int lowerBound;
+        private final int borders;
+        private final int distance;
+        private final int nextMove;
+        private final int exactObjective;
+
+        private Entry(int lowerBound, int borders, int distance, int nextMove, int exactObjective) {
+            this.lowerBound = lowerBound;
+            this.borders = borders;
+            this.distance = distance;
+            this.nextMove = nextMove;
+            this.exactObjective = exactObjective;
+        }
+
+        /**
+         * @return The proven lower bound on the number of borders reachable from the state, UNKNOWN if none.
+         */
+        public int getLowerBound() {
+            return lowerBound;
+        }
+
+        /**
+         * @return The number of borders of the solution reached from the state, UNKNOWN if none.
+         */
+        public int getBorders() {
+            return borders;
+        }
+
+        /**
+         * @return The number of moves of the solution, UNKNOWN if none.
+         */
+        public int getDistance() {
+            return distance;
+        }
+
+        /**
+         * @return The first move of the solution, meaningless when the distance is 0 or unknown.
+         */
+        public int getNextMove() {
+            return nextMove;
+        }
+
+        /**
+         * @return The objective for which the distance is the smallest possible, UNKNOWN if it is not proven.
+         */
+        public int getExactObjective() {
+            return exactObjective;
+        }
+
+        public boolean hasSolution() {
+            return distance != UNKNOWN;
+        }
+    }
+
+    /**
+     * Looks up the facts recorded about a state, marking them as used in this session.
+     *
+     * @param key The key of the state.
+     * @return The entry of the state, null if nothing is recorded.
+     */
+    public synchronized Entry lookup(long key) {
+        int slot = find(key);
+        if(slot < 0)
+            return null;
+        buffer.putInt(slot + STAMP, session);
+        return new Entry(buffer.getInt(slot + LOWER_BOUND), buffer.getInt(slot + BORDERS),
+                buffer.getInt(slot + DISTANCE), buffer.getInt(slot + NEXT_MOVE), buffer.getInt(slot + EXACT));
+    }
+
+    /**
+     * Records that no state with fewer borders than a bound is reachable from a state, keeping
+     * the highest bound known.
+     *
+     * @param key The key of the state.
+     * @param lowerBound The lower bound on the number of borders reachable from it.
+     */
+    public synchronized void recordLowerBound(long key, int lowerBound) {
+        int slot = slotFor(key);
+        buffer.putInt(slot + LOWER_BOUND, Math.max(lowerBound, buffer.getInt(slot + LOWER_BOUND)));
+    }
+
+    /**
+     * Records a solution from a state, unless a better one is known: one reaching fewer borders,
+     * or as many in fewer moves, or as good but only proven optimal.
+     *
+     * @param key The key of the state.
+     * @param borders The number of borders reached.
+     * @param distance The number of moves of the solution.
+     * @param nextMove The first move of the solution.
+     * @param exactObjective The objective for which no shorter solution exists, UNKNOWN if it is not proven.
+     */
+    public synchronized void recordSolution(long key, int borders, int distance, int nextMove, int exactObjective) {
+        int slot = slotFor(key);
+        int knownDistance = buffer.getInt(slot + DISTANCE);
+        int knownBorders = buffer.getInt(slot + BORDERS);
+        boolean better = knownDistance == UNKNOWN
+                || borders < knownBorders
+                || (borders == knownBorders && distance < knownDistance)
+                || (borders == knownBorders && distance == knownDistance && exactObjective != UNKNOWN);
+        if(!better)
+            return;
+        buffer.putInt(slot + BORDERS, borders);
+        buffer.putInt(slot + DISTANCE, distance);
+        buffer.putInt(slot + NEXT_MOVE, nextMove);
+        buffer.putInt(slot + EXACT, exactObjective);
+    }
+
+    /**
+     * Finds the slot holding a key.
+     *
+     * @return The position of the entry in the buffer, -1 if the key is absent.
+     */
+    private int find(long key) {
+        int first = firstSlot(key);
+        for(int way = 0; way < WAYS; way++) {
+            int slot = first + way * ENTRY_BYTES;
+            if(buffer.getInt(slot + STAMP) != 0 && buffer.getLong(slot + KEY) == key)
+                return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the slot holding a key, or claims one for it, evicting the entry of the set touched
+     * in the oldest session when the set is full. The slot is marked as used in this session.
+     *
+     * @return The position of the entry in the buffer.
+     */
+    private int slotFor(long key) {
+        int slot = find(key);
+        if(slot < 0) {
+            int first = firstSlot(key);
+            slot = first;
+            for(int way = 0; way < WAYS; way++) {
+                int candidate = first + way * ENTRY_BYTES;
+                int stamp = buffer.getInt(candidate + STAMP);
+                if(stamp == 0) {
+                    slot = candidate;
+                    break;
+                }
+                //stamps only grow, the oldest session has the smallest stamp
+                if(Integer.compareUnsigned(stamp, buffer.getInt(slot + STAMP)) < 0)
+                    slot = candidate;
+            }
+            buffer.putLong(slot + KEY, key);
+            buffer.putInt(slot + LOWER_BOUND, UNKNOWN);
+            buffer.putInt(slot + BORDERS, UNKNOWN);
+            buffer.putInt(slot + DISTANCE, UNKNOWN);
+            buffer.putInt(slot + NEXT_MOVE, UNKNOWN);
+            buffer.putInt(slot + EXACT, UNKNOWN);
+        }
+        buffer.putInt(slot + STAMP, session);
+        return slot;
+    }
+
+    /**
+     * Computes the position of the first entry of the set of a key.
+     */
+    private int firstSlot(long key) {
+        int set = sets == 1 ? 0 : (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        return HEADER_BYTES + set * WAYS * ENTRY_BYTES;
+    }
+
+    /**
+     * Writes the entries to the file.
+     */
+    public synchronized void flush() {
+        buffer.force();
+    }
+
+    /**
+     * Writes the entries to the file and closes it. The store must not be used afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.jjginga.visited;
+
+/**
+ * Bounded table of the states reached during an iteration of a depth-limited search, together
+ * with the largest remaining depth they were reached with. Reaching the same state again in the
+ * same iteration with no more remaining depth cannot find anything new, so the subtree can be
+ * skipped.
+ *
+ * The table has a fixed number of slots chosen at construction and each fingerprint maps to a
+ * single slot; a new entry always replaces the previous occupant, so memory never grows. A lost
+ * entry only means that a subtree may be explored again. Entries are stamped with the iteration
+ * that wrote them, so starting a new iteration does not require clearing the table.
+ */
+public class TranspositionTable {
+
+    private final long[] fingerprints;//fingerprint of the state stored in each slot
+    private final int[] depths;//largest remaining depth the state was reached with
+    private final int[] iterations;//iteration that wrote each slot, 0 when the slot is empty
+    private final int shift;//64 - log2 of the number of slots
+    private int iteration = 1;//current iteration
+
+    /**
+     * Constructs a table with at least the given number of slots.
+     *
+     * @param size The number of entries the table can hold, rounded up to a power of two.
+     */
+    public TranspositionTable(int size) {
+        int capacity = Integer.highestOneBit(Math.max(2, size) - 1) << 1;
+        this.fingerprints = new long[capacity];
+        this.depths = new int[capacity];
+        this.iterations = new int[capacity];
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * Starts a new iteration, after which every entry of the previous ones is ignored.
+     */
+    public void nextIteration() {
+        iteration++;
+    }
+
+    /**
+     * Records that a state is being explored with the given remaining depth, unless it was
+     * already explored in this iteration with at least as much.
+     *
+     * @param fingerprint The fingerprint of the state.
+     * @param remainingDepth The depth still available below the state.
+     * @return True if the state must be explored, false if the subtree below it can be skipped.
+     */
+    public boolean visit(long fingerprint, int remainingDepth) {
+        int index = (int) ((fingerprint * 0x9E3779B97F4A7C15L) >>> shift);
+        if(iterations[index] == iteration && fingerprints[index] == fingerprint && depths[index] >= remainingDepth)
+            return false;
+
+        fingerprints[index] = fingerprint;
+        depths[index] = remainingDepth;
+        iterations[index] = iteration;
+        return true;
+    }
+}
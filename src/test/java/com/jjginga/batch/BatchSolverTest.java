@@ -0,0 +1,101 @@
+package com.jjginga.batch;
+
+import com.jjginga.searchtechnique.BFS;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Unit tests for the batch solver.
+ */
+public class BatchSolverTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public BatchSolverTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( BatchSolverTest.class );
+    }
+
+    /**
+     * Every instance of the input must get exactly one record, in whatever order they finish,
+     * and invalid lines must get an error record instead of stopping the batch.
+     */
+    public void testOneRecordPerInstance() throws Exception
+    {
+        StringBuilder input = new StringBuilder( "# instances\n\n" );
+        for( int i = 0; i < 50; i++ )
+            input.append( "first-" ).append( i ).append( " 6 1,2,3/1,2,2/3,3,1\n" )
+                 .append( "second-" ).append( i ).append( " 4 1,2,2,2/1,2,1,1\n" );
+        input.append( "broken 4 1,2,x\n" );
+
+        StringWriter output = new StringWriter();
+        long instances = new BatchSolver( BFS::new, 4, 1000 )
+            .solve( new BufferedReader( new StringReader( input.toString() ) ), output );
+        assertEquals( 101, instances );
+
+        String[] records = output.toString().split( "\n" );
+        assertEquals( 101, records.length );
+        Set<String> ids = new HashSet<>();
+        int errors = 0;
+        for( String record : records )
+        {
+            if( record.contains( "\"error\"" ) )
+            {
+                errors++;
+                continue;
+            }
+            assertTrue( record, record.contains( "\"solved\":true" ) );
+            ids.add( record.substring( 7, record.indexOf( '"', 7 ) ) );
+        }
+        assertEquals( 1, errors );
+        assertEquals( 100, ids.size() );
+    }
+
+    /**
+     * A search failing with an error, such as a stack overflow, must still give its instance an
+     * error record, so that the batch writes one record per instance and returns.
+     */
+    public void testFailingSearchGetsErrorRecord() throws Exception
+    {
+        String input = "ok 6 1,2,3/1,2,2/3,3,1\noverflow 4 1,2,2,2/1,2,1,1\n";
+
+        StringWriter output = new StringWriter();
+        long instances = new BatchSolver( ( state, objective ) -> {
+                if( objective == 4 )
+                    throw new StackOverflowError();
+                return new BFS( state, objective );
+            }, 2, 1000 )
+            .solve( new BufferedReader( new StringReader( input ) ), output );
+        assertEquals( 2, instances );
+
+        String[] records = output.toString().split( "\n" );
+        assertEquals( 2, records.length );
+        int errors = 0;
+        for( String record : records )
+            if( record.contains( "\"error\"" ) )
+            {
+                assertTrue( record, record.startsWith( "{\"id\":\"overflow\"" ) );
+                errors++;
+            }
+        assertEquals( 1, errors );
+    }
+}
@@ -0,0 +1,134 @@
+package com.jjginga.instance;
+
+import com.jjginga.searchtechnique.BFS;
+import com.jjginga.state.LandMap;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for the instance file format and the instance generator.
+ */
+public class InstanceFileTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public InstanceFileTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( InstanceFileTest.class );
+    }
+
+    /**
+     * Instances of any size and number of owners must be read back equal to the ones written,
+     * with the same objective, number of borders and fingerprint.
+     */
+    public void testRoundTrip() throws Exception
+    {
+        int[][] manyOwners = new int[5][7];
+        for( int i = 0; i < 35; i++ )
+            manyOwners[i / 7][i % 7] = 3 * i + 10;
+
+        List<Instance> instances = new ArrayList<>();
+        instances.add( new Instance( new LandMap( new int[][]{{1,2,3},{1,2,2},{3,3,1}} ), 6 ) );
+        instances.add( new Instance( new LandMap( new int[][]{{4,4,4}} ), 0 ) );
+        instances.add( new Instance( new LandMap( manyOwners ), 50 ) );
+        instances.addAll( new InstanceGenerator( 7 ).generate( 3, 50, 50, 8, 0.5 ) );
+        instances.add( new InstanceGenerator( 8 ).generate( 200, 300, new double[]{ 5, 1, 1, 0, 2 }, 0 ) );
+
+        Path file = Files.createTempFile( "instances", ".lmap" );
+        try
+        {
+            InstanceFile.writeAll( file, instances );
+            List<Instance> read = InstanceFile.readAll( file );
+            assertEquals( instances.size(), read.size() );
+            for( int i = 0; i < instances.size(); i++ )
+            {
+                LandMap expected = instances.get( i ).getState();
+                LandMap actual = read.get( i ).getState();
+                assertEquals( instances.get( i ).getObjective(), read.get( i ).getObjective() );
+                assertEquals( expected, actual );
+                assertEquals( expected.getObjectiveValue(), actual.getObjectiveValue() );
+                assertEquals( expected.getFingerprint(), actual.getFingerprint() );
+                assertTrue( Arrays.deepEquals( expected.cloneMap(), actual.cloneMap() ) );
+            }
+        }
+        finally
+        {
+            Files.delete( file );
+        }
+    }
+
+    /**
+     * A file cut in the middle of an instance must be rejected.
+     */
+    public void testTruncatedFile() throws Exception
+    {
+        Path file = Files.createTempFile( "instances", ".lmap" );
+        try
+        {
+            InstanceFile.writeAll( file, new InstanceGenerator( 1 ).generate( 2, 10, 10, 4, 1 ) );
+            byte[] content = Files.readAllBytes( file );
+            Files.write( file, Arrays.copyOf( content, content.length - 8 ) );
+            InstanceFile.Reader reader = InstanceFile.reader( file );
+            reader.next();
+            try
+            {
+                reader.next();
+                fail( "A truncated instance was read" );
+            }
+            catch( IllegalArgumentException expected )
+            {
+            }
+        }
+        finally
+        {
+            Files.delete( file );
+        }
+    }
+
+    /**
+     * The generator must be reproducible from its seed, deal the cells according to the weights
+     * and give objectives that can be reached.
+     */
+    public void testGenerator()
+    {
+        Instance first = new InstanceGenerator( 42 ).generate( 50, 50, new double[]{ 3, 1 }, 1 );
+        Instance again = new InstanceGenerator( 42 ).generate( 50, 50, new double[]{ 3, 1 }, 1 );
+        assertEquals( first.getState(), again.getState() );
+        assertEquals( first.getObjective(), again.getObjective() );
+        assertFalse( first.getState().equals( new InstanceGenerator( 43 ).generate( 50, 50, new double[]{ 3, 1 }, 1 ).getState() ) );
+
+        int firstOwner = 0;
+        for( int[] row : first.getState().cloneMap() )
+            for( int owner : row )
+                if( owner == 1 )
+                    firstOwner++;
+        assertEquals( 1875, firstOwner );
+        assertTrue( first.getObjective() < first.getState().getObjectiveValue() );
+
+        InstanceGenerator generator = new InstanceGenerator( 3 );
+        for( int i = 0; i < 5; i++ )
+        {
+            Instance small = generator.generate( 3, 4, 3, 1 );
+            assertTrue( new BFS( small.getState(), small.getObjective() ).call().isSolutionFound() );
+        }
+    }
+}
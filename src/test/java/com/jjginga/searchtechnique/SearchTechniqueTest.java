@@ -0,0 +1,695 @@
+package com.jjginga.searchtechnique;
+
+import com.jjginga.metrics.ISearchListener;
+import com.jjginga.metrics.JfrSearchListener;
+import com.jjginga.metrics.MetricsSnapshot;
+import com.jjginga.ordering.GridOrdering;
+import com.jjginga.ordering.HistoryOrdering;
+import com.jjginga.ordering.IMoveOrdering;
+import com.jjginga.ordering.RandomOrdering;
+import com.jjginga.ordering.ReductionOrdering;
+import com.jjginga.result.SearchResult;
+import com.jjginga.state.IState;
+import com.jjginga.state.LandMap;
+import com.jjginga.visited.BitStateSet;
+import com.jjginga.visited.TranspositionStore;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Runs the search techniques on the small instances of the problem.
+ */
+public class SearchTechniqueTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public SearchTechniqueTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( SearchTechniqueTest.class );
+    }
+
+    private static IState firstInstance()
+    {
+        return new LandMap( new int[][]{{1,2,3},{1,2,2},{3,3,1}} );
+    }
+
+    private static IState secondInstance()
+    {
+        return new LandMap( new int[][]{{1,2,2,2},{1,2,1,1}} );
+    }
+
+    /**
+     * Searching twice with the same parallel BFS must search afresh, not return the solution of
+     * the first search, and a parallel BFS running on a fork-join pool must expand its layers there.
+     */
+    public void testParallelBreadthFirstRunsAgain() throws Exception
+    {
+        ParallelBFS parallel = new ParallelBFS( firstInstance(), 6, 4 );
+        SearchResult first = parallel.call();
+        SearchResult second = parallel.call();
+        assertTrue( second.isSolutionFound() );
+        assertEquals( first.getGeneratedStates(), second.getGeneratedStates() );
+        assertEquals( first.getState().getDepth(), second.getState().getDepth() );
+
+        //a search stopped by its time limit must not leave the next one stopped as well
+        IState large = new LandMap( new int[][]{{1,1,2,8,8,1,4,3,1,4},{2,2,1,8,3,8,4,3,2,1},{1,1,8,8,3,1,6,2,1,4},{2,1,1,3,1,2,1,1,4,4},{1,7,7,3,1,1,5,6,4,4},{2,2,1,3,1,2,2,1,6,6},{1,7,2,7,5,5,5,5,1,6},{2,7,7,7,1,5,5,1,6,6}} );
+        ParallelBFS stopped = new ParallelBFS( large, large.getReachableLowerBound(), 4 );
+        stopped.setTimeLimit( 1 );
+        stopped.call();
+        stopped.setTimeLimit( 200 );
+        stopped.call();
+        assertNotNull( stopped.getNotFoundResult() );
+
+        ForkJoinPool pool = new ForkJoinPool( 2 );
+        try
+        {
+            SearchResult pooled = pool.submit( new ParallelBFS( firstInstance(), 6, 4 ) ).get();
+            assertTrue( pooled.isSolutionFound() );
+            assertEquals( first.getState().getDepth(), pooled.getState().getDepth() );
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Searching twice with the same IDA* must search afresh, reporting the counts and the
+     * solution of the second search only.
+     */
+    public void testIDAStarRunsAgain()
+    {
+        IDAStar idaStar = new IDAStar( firstInstance(), 6 );
+        SearchResult first = idaStar.call();
+        SearchResult second = idaStar.call();
+        assertTrue( second.isSolutionFound() );
+        assertEquals( first.getGeneratedStates(), second.getGeneratedStates() );
+        assertEquals( first.getState().getDepth(), second.getState().getDepth() );
+        assertTrue( Arrays.equals( first.getMoves(), second.getMoves() ) );
+
+        IDAStar failing = new IDAStar( secondInstance(), 2 );
+        assertEquals( failing.call().getGeneratedStates(), failing.call().getGeneratedStates() );
+    }
+
+    /**
+     * Searching twice with the same IDDFS, with or without transposition table, must search
+     * afresh, reporting the counts of the second search only.
+     */
+    public void testIterativeDeepeningRunsAgain()
+    {
+        for( int tableSize : new int[]{ 0, 1 << 10 } )
+        {
+            IterativeDDFS iddfs = new IterativeDDFS( firstInstance(), 6, tableSize );
+            SearchResult first = iddfs.call();
+            SearchResult second = iddfs.call();
+            assertTrue( second.isSolutionFound() );
+            assertEquals( first.getGeneratedStates(), second.getGeneratedStates() );
+            assertEquals( first.getState().getDepth(), second.getState().getDepth() );
+
+            IterativeDDFS failing = new IterativeDDFS( secondInstance(), 2, tableSize );
+            assertEquals( failing.call().getGeneratedStates(), failing.call().getGeneratedStates() );
+        }
+    }
+    /**
+     * The parallel BFS must find solutions exactly when BFS does, at the same depth.
+     */
+    public void testBreadthFirstTechniquesAgree()
+    {
+        for( int objective = 8; objective >= 5; objective-- )
+        {
+            SearchResult bfs = new BFS( firstInstance(), objective ).call();
+            SearchResult parallel = new ParallelBFS( firstInstance(), objective, 4 ).call();
+            assertEquals( bfs.isSolutionFound(), parallel.isSolutionFound() );
+            if( bfs.isSolutionFound() )
+            {
+                assertTrue( parallel.getState().getObjectiveValue() <= objective );
+                assertEquals( bfs.getState().getDepth(), parallel.getState().getDepth() );
+            }
+        }
+    }
+
+    /**
+     * The external BFS must find solutions exactly when BFS does, at the same depth, and report
+     * moves leading to them. A tiny run size makes every layer go through several runs.
+     */
+    public void testExternalBreadthFirstAgrees()
+    {
+        for( int objective = 8; objective >= 4; objective-- )
+        {
+            SearchResult bfs = new BFS( firstInstance(), objective ).call();
+            SearchResult external = new ExternalBFS( firstInstance(), objective, null, 3 ).call();
+            assertEquals( bfs.isSolutionFound(), external.isSolutionFound() );
+            if( bfs.isSolutionFound() )
+            {
+                assertEquals( bfs.getState().getDepth(), external.getState().getDepth() );
+                IState replayed = firstInstance();
+                for( int move : external.getMoves() )
+                    replayed.apply( move );
+                assertEquals( external.getState(), replayed );
+            }
+        }
+    }
+
+    /**
+     * Deduplicating on the canonical form must not change the depth of the solutions found by
+     * BFS, and must generate fewer states when the whole space is explored.
+     */
+    public void testCanonicalDeduplication()
+    {
+        for( int objective = 8; objective >= 4; objective-- )
+        {
+            SearchResult plain = new BFS( firstInstance(), objective ).call();
+            BFS canonicalBfs = new BFS( firstInstance(), objective );
+            canonicalBfs.setCanonicalDeduplication( true );
+            SearchResult canonical = canonicalBfs.call();
+            assertEquals( plain.isSolutionFound(), canonical.isSolutionFound() );
+            if( plain.isSolutionFound() )
+                assertEquals( plain.getState().getDepth(), canonical.getState().getDepth() );
+        }
+
+        BFS canonicalBfs = new BFS( secondInstance(), 2 );
+        canonicalBfs.setCanonicalDeduplication( true );
+        SearchResult canonical = canonicalBfs.call();
+        SearchResult plain = new BFS( secondInstance(), 2 ).call();
+        assertFalse( canonical.isSolutionFound() );
+        assertTrue( canonical.getGeneratedStates() < plain.getGeneratedStates() );
+    }
+
+    /**
+     * With a bitstate visited set large enough for the instance, BFS must find the same
+     * solutions and report a non-zero false positive risk.
+     */
+    public void testBitStateDuplicateDetection()
+    {
+        for( int objective = 8; objective >= 6; objective-- )
+        {
+            SearchResult exact = new BFS( firstInstance(), objective ).call();
+            BFS bitState = new BFS( firstInstance(), objective );
+            bitState.setVisitedSetFactory( () -> new BitStateSet( 1 << 16 ) );
+            SearchResult result = bitState.call();
+            assertTrue( result.isSolutionFound() );
+            assertEquals( exact.getState().getDepth(), result.getState().getDepth() );
+            assertTrue( result.getFalsePositiveRate() > 0 );
+            assertEquals( 0.0, exact.getFalsePositiveRate() );
+        }
+    }
+
+    /**
+     * A repeated instance must be answered from the transposition store without generating any
+     * state, with the same depth-optimal solution, and an instance proven out of reach must fail
+     * at once. A DFS starting one move before a solved instance must follow its stored solution.
+     */
+    public void testTranspositionStore() throws Exception
+    {
+        Path file = Files.createTempFile( "store", ".tts" );
+        try( TranspositionStore store = TranspositionStore.open( file, 1 << 12 ) )
+        {
+            BFS first = new BFS( firstInstance(), 6 );
+            first.setTranspositionStore( store );
+            SearchResult solved = first.call();
+            assertTrue( solved.isSolutionFound() );
+
+            BFS again = new BFS( firstInstance(), 6 );
+            again.setTranspositionStore( store );
+            SearchResult repeated = again.call();
+            assertTrue( repeated.isSolutionFound() );
+            assertEquals( 0, repeated.getGeneratedStates() );
+            assertEquals( solved.getState().getDepth(), repeated.getState().getDepth() );
+            assertEquals( repeated.getState(), replay( firstInstance(), repeated.getMoves() ) );
+
+            //the objective differs, so the stored length is not proven optimal for it
+            BFS other = new BFS( firstInstance(), 7 );
+            other.setTranspositionStore( store );
+            assertTrue( other.call().getGeneratedStates() > 0 );
+
+            //below 4 borders is out of reach, but above the lower bound derived from the colour counts
+            DFS unreachable = new DFS( secondInstance(), 2 );
+            unreachable.setTranspositionStore( store );
+            assertFalse( unreachable.call().isSolutionFound() );
+            AStar proven = new AStar( secondInstance(), 3 );
+            proven.setTranspositionStore( store );
+            SearchResult failed = proven.call();
+            assertFalse( failed.isSolutionFound() );
+            assertEquals( 0, failed.getGeneratedStates() );
+
+            //the instance reached by undoing the first move of the stored solution
+            IState before = firstInstance();
+            before.apply( solved.getMoves()[0] );
+            before = new LandMap( ((LandMap) before).cloneMap() );
+            DFS nearRepeat = new DFS( before, 6 );
+            nearRepeat.setTranspositionStore( store );
+            SearchResult near = nearRepeat.call();
+            assertTrue( near.isSolutionFound() );
+            assertEquals( near.getState(), replay( before, near.getMoves() ) );
+        }
+        finally
+        {
+            Files.delete( file );
+        }
+    }
+
+    /**
+     * The moves Beam Search keeps for the states of its beam must lead to its solution on a map
+     * where the beam drops states at every depth.
+     */
+    public void testBeamSearchPathSurvivesDroppedStates()
+    {
+        int[][] map = {{1,2,2,2,2,1,2,2,2,2},{1,3,3,3,4,1,3,3,3,4},{1,2,1,4,3,1,2,1,4,3},{1,4,4,4,3,1,4,4,4,3}};
+        for( int width : new int[]{64, 1024} )
+        {
+            SearchResult result = new BeamSearch( new LandMap( map ), 30, width ).call();
+            assertTrue( result.isSolutionFound() );
+            assertEquals( result.getState().getDepth(), result.getMoves().length );
+            assertEquals( result.getState(), replay( new LandMap( map ), result.getMoves() ) );
+        }
+    }
+
+
+    /**
+     * Whatever the number of successors of its states, a beam must never hold more states than
+     * its width, nor track more fingerprints for duplicate detection.
+     */
+    public void testBeamSearchHoldsAtMostWidthStates()
+    {
+        IState large = new LandMap( new int[][]{{1,1,2,8,8,1,4,3,1,4},{2,2,1,8,3,8,4,3,2,1},{1,1,8,8,3,1,6,2,1,4},{2,1,1,3,1,2,1,1,4,4},{1,7,7,3,1,1,5,6,4,4},{2,2,1,3,1,2,2,1,6,6},{1,7,2,7,5,5,5,5,1,6},{2,7,7,7,1,5,5,1,6,6}} );
+        for( int width : new int[]{ 1, 3, 16 } )
+        {
+            BeamSearch beam = new BeamSearch( large, large.getReachableLowerBound(), width );
+            beam.setTimeLimit( 2000 );
+            MetricsSnapshot metrics = beam.call().getMetrics();
+            assertTrue( metrics.getExpandedStates() > 0 );
+            assertTrue( metrics.getPeakFrontierSize() > 0 );
+            assertTrue( "width " + width, metrics.getPeakFrontierSize() <= width );
+            assertTrue( "width " + width, metrics.getPeakVisitedSize() <= width );
+        }
+    }
+    /**
+     * An IDDFS with a transposition table is neither complete nor depth-optimal, so a store it
+     * feeds must neither prove a failure nor hold its solution as the shortest one: a BFS with
+     * the same objective must still search, and a DFS must still find the solution.
+     */
+    public void testTranspositionTableDoesNotFeedProofsToStore() throws Exception
+    {
+        Path file = Files.createTempFile( "store", ".tts" );
+        try( TranspositionStore store = TranspositionStore.open( file, 1 << 12 ) )
+        {
+            IterativeDDFS failing = new IterativeDDFS( secondInstance(), 2, 1 << 10 );
+            failing.setTranspositionStore( store );
+            assertFalse( failing.call().isSolutionFound() );
+            DFS unproven = new DFS( secondInstance(), 2 );
+            unproven.setTranspositionStore( store );
+            assertTrue( unproven.call().getGeneratedStates() > 0 );
+
+            IterativeDDFS solving = new IterativeDDFS( firstInstance(), 6, 1 << 10 );
+            solving.setTranspositionStore( store );
+            SearchResult solved = solving.call();
+            assertTrue( solved.isSolutionFound() );
+            assertEquals( solved.getState(), replay( firstInstance(), solved.getMoves() ) );
+
+            BFS bfs = new BFS( firstInstance(), 6 );
+            bfs.setTranspositionStore( store );
+            SearchResult shortest = bfs.call();
+            assertTrue( shortest.isSolutionFound() );
+            assertTrue( shortest.getGeneratedStates() > 0 );
+            assertTrue( shortest.getState().getDepth() <= solved.getState().getDepth() );
+        }
+        finally
+        {
+            Files.delete( file );
+        }
+    }
+
+    /**
+     * Branch and Bound must report the fewest borders reachable, found by BFS lowering its
+     * objective until it fails, prove it optimal with the moves leading to it, and stop at the
+     * first state meeting a looser objective. The optimum it proves is kept in the store.
+     */
+    public void testBranchAndBoundFindsOptimum() throws Exception
+    {
+        int[][][] maps = {
+            {{1,2,3},{1,2,2},{3,3,1}},
+            {{1,2,2,2},{1,2,1,1}},
+            {{1,1,2,1,1},{2,2,1,2,1},{1,1,2,1,2}}
+        };
+        for( int[][] map : maps )
+        {
+            int optimum = new LandMap( map ).getObjectiveValue();
+            while( new BFS( new LandMap( map ), optimum - 1 ).call().isSolutionFound() )
+                optimum--;
+
+            SearchResult result = new BranchAndBound( new LandMap( map ) ).call();
+            assertTrue( result.isOptimal() );
+            assertEquals( optimum, result.getState().getObjectiveValue() );
+            assertEquals( optimum == 0, result.isSolutionFound() );
+            assertEquals( result.getState(), replay( new LandMap( map ), result.getMoves() ) );
+
+            SearchResult loose = new BranchAndBound( new LandMap( map ), optimum + 1 ).call();
+            assertTrue( loose.isSolutionFound() );
+            assertTrue( loose.getState().getObjectiveValue() <= optimum + 1 );
+        }
+
+        Path file = Files.createTempFile( "store", ".tts" );
+        try( TranspositionStore store = TranspositionStore.open( file, 1 << 12 ) )
+        {
+            BranchAndBound optimiser = new BranchAndBound( secondInstance() );
+            optimiser.setTranspositionStore( store );
+            assertEquals( 4, optimiser.call().getState().getObjectiveValue() );
+
+            //the optimum is read back with its path
+            BranchAndBound repeat = new BranchAndBound( secondInstance() );
+            repeat.setTranspositionStore( store );
+            SearchResult stored = repeat.call();
+            assertTrue( stored.isOptimal() );
+            assertEquals( 0, stored.getGeneratedStates() );
+            assertEquals( 4, stored.getState().getObjectiveValue() );
+            assertEquals( stored.getState(), replay( secondInstance(), stored.getMoves() ) );
+
+            DFS unreachable = new DFS( secondInstance(), 3 );
+            unreachable.setTranspositionStore( store );
+            SearchResult failed = unreachable.call();
+            assertFalse( failed.isSolutionFound() );
+            assertEquals( 0, failed.getGeneratedStates() );
+        }
+        finally
+        {
+            Files.delete( file );
+        }
+    }
+
+    /**
+     * Every move ordering must try each valid move exactly once, the reduction ordering the
+     * largest reductions first, and a random ordering the same order for the same seed. The
+     * depth-first techniques must still reach the objective under any of them, IDDFS and IDA* at
+     * the depth found by BFS, and Branch and Bound must prove the same optimum.
+     */
+    public void testMoveOrderings()
+    {
+        List<Supplier<IMoveOrdering>> orderings = new ArrayList<>();
+        orderings.add( GridOrdering::new );
+        orderings.add( ReductionOrdering::new );
+        orderings.add( HistoryOrdering::new );
+        orderings.add( () -> new RandomOrdering( 7 ) );
+
+        IState state = new LandMap( new int[][]{{1,2,2,2},{1,3,3,3},{1,2,1,1},{1,1,3,2}} );
+        int[] gridMoves = movesOf( state.moves() );
+        Arrays.sort( gridMoves );
+        for( Supplier<IMoveOrdering> ordering : orderings )
+        {
+            int[] ordered = movesOf( ordering.get().order( state ) );
+            Arrays.sort( ordered );
+            assertTrue( Arrays.equals( gridMoves, ordered ) );
+        }
+
+        int previous = Integer.MIN_VALUE;
+        for( int move : movesOf( new ReductionOrdering().order( state ) ) )
+        {
+            int borders = state.successor( move ).getObjectiveValue();
+            assertTrue( previous <= borders );
+            previous = borders;
+        }
+        assertTrue( Arrays.equals( movesOf( new RandomOrdering( 3 ).order( state ) ), movesOf( new RandomOrdering( 3 ).order( state ) ) ) );
+
+        int depth = new BFS( firstInstance(), 6 ).call().getState().getDepth();
+        for( Supplier<IMoveOrdering> ordering : orderings )
+        {
+            AbstractSearchTechnique[] techniques = {
+                new DFS( firstInstance(), 6 ),
+                new IterativeDDFS( firstInstance(), 6 ),
+                new IDAStar( firstInstance(), 6 )
+            };
+            for( AbstractSearchTechnique technique : techniques )
+            {
+                technique.setMoveOrdering( ordering );
+                SearchResult result = technique.call();
+                assertTrue( technique.toString(), result.isSolutionFound() );
+                assertEquals( technique.toString(), result.getState(), replay( firstInstance(), result.getMoves() ) );
+                if( !(technique instanceof DFS) )
+                    assertEquals( technique.toString(), depth, result.getState().getDepth() );
+            }
+
+            BranchAndBound optimiser = new BranchAndBound( secondInstance() );
+            optimiser.setMoveOrdering( ordering );
+            SearchResult optimum = optimiser.call();
+            assertTrue( optimum.isOptimal() );
+            assertEquals( 4, optimum.getState().getObjectiveValue() );
+            assertEquals( optimum.getState(), replay( secondInstance(), optimum.getMoves() ) );
+        }
+    }
+
+    private static int[] movesOf( PrimitiveIterator.OfInt moves )
+    {
+        List<Integer> list = new ArrayList<>();
+        moves.forEachRemaining( (int move) -> list.add( move ) );
+        return list.stream().mapToInt( Integer::intValue ).toArray();
+    }
+
+    private static IState replay( IState state, int[] moves )
+    {
+        IState replayed = state.copy();
+        for( int move : moves )
+            replayed.apply( move );
+        return replayed;
+    }
+
+    /**
+     * The final metrics must be delivered to the listeners and attached to the result, and must
+     * agree with the counts reported by the search.
+     */
+    public void testMetricsAreReported()
+    {
+        final List<MetricsSnapshot> finished = new ArrayList<>();
+        BFS bfs = new BFS( secondInstance(), 2 );
+        bfs.setSamplingInterval( 1 );
+        bfs.addListener( new JfrSearchListener() );
+        bfs.addListener( new ISearchListener()
+        {
+            public void onSample( String technique, MetricsSnapshot snapshot )
+            {
+            }
+
+            public void onFinish( String technique, MetricsSnapshot snapshot )
+            {
+                finished.add( snapshot );
+            }
+        } );
+        SearchResult result = bfs.call();
+
+        assertEquals( 1, finished.size() );
+        MetricsSnapshot metrics = result.getMetrics();
+        assertSame( finished.get( 0 ), metrics );
+        assertEquals( result.getGeneratedStates(), metrics.getGeneratedStates() );
+        assertTrue( metrics.getExpandedStates() > 0 );
+        assertTrue( metrics.getPeakFrontierSize() > 0 );
+        assertEquals( metrics.getExpandedStates(), metrics.getPeakVisitedSize() );
+        assertTrue( metrics.getDuplicateRatio() > 0 && metrics.getDuplicateRatio() < 1 );
+        assertTrue( metrics.isGenerationTimed() );
+        assertTrue( metrics.getGenerationNanos() > 0 );
+    }
+
+    /**
+     * Without listener the time spent generating successors is not measured, so the metrics must
+     * not report a split between generation and bookkeeping.
+     */
+    public void testUntimedMetricsOmitGenerationSplit()
+    {
+        MetricsSnapshot metrics = new BFS( secondInstance(), 2 ).call().getMetrics();
+        assertFalse( metrics.isGenerationTimed() );
+        assertTrue( metrics.getExpandedStates() > 0 );
+        assertEquals( 0, metrics.getGenerationNanos() );
+        assertEquals( 0, metrics.getBookkeepingNanos() );
+        assertFalse( metrics.toString(), metrics.toString().contains( "generation" ) );
+        assertFalse( metrics.toString(), metrics.toString().contains( "bookkeeping" ) );
+    }
+
+    /**
+     * Running a search again must report the metrics of the new run only, not add them to those
+     * of the previous one.
+     */
+    public void testMetricsAreResetOnRerun()
+    {
+        BFS bfs = new BFS( secondInstance(), 2 );
+        MetricsSnapshot first = bfs.call().getMetrics();
+        MetricsSnapshot second = bfs.call().getMetrics();
+
+        assertEquals( first.getExpandedStates(), second.getExpandedStates() );
+        assertEquals( first.getGeneratedStates(), second.getGeneratedStates() );
+        assertEquals( first.getDuplicateHits(), second.getDuplicateHits() );
+        assertEquals( first.getPeakFrontierSize(), second.getPeakFrontierSize() );
+        assertEquals( first.getPeakVisitedSize(), second.getPeakVisitedSize() );
+    }
+
+    /**
+     * With a time limit on a large instance, every technique must stop promptly and report the
+     * best state it reached, with moves leading to it, after publishing each improvement.
+     */
+    public void testTimeLimitReportsBestState()
+    {
+        int[][] map = {{1,1,2,8,8,1,4,3,1,4},{2,2,1,8,3,8,4,3,2,1},{1,1,8,8,3,1,6,2,1,4},{2,1,1,3,1,2,1,1,4,4},
+                       {1,7,7,3,1,1,5,6,4,4},{2,2,1,3,1,2,2,1,6,6},{1,7,2,7,5,5,5,5,1,6},{2,7,7,7,1,5,5,1,6,6}};
+        //the lowest objective that is not ruled out before searching
+        int bound = new LandMap( map ).getReachableLowerBound();
+        AbstractSearchTechnique[] techniques = {
+            new BFS( new LandMap( map ), bound ),
+            new ParallelBFS( new LandMap( map ), bound ),
+            new DFS( new LandMap( map ), bound ),
+            new IterativeDDFS( new LandMap( map ), bound ),
+            new IDAStar( new LandMap( map ), bound )
+        };
+        for( AbstractSearchTechnique technique : techniques )
+        {
+            final List<Integer> improvements = new ArrayList<>();
+            technique.setTimeLimit( 100 );
+            technique.addListener( new ISearchListener()
+            {
+                public void onSample( String name, MetricsSnapshot snapshot )
+                {
+                }
+
+                public void onImprovement( String name, IState best, int[] moves )
+                {
+                    improvements.add( best.getObjectiveValue() );
+                }
+            } );
+
+            long start = System.nanoTime();
+            SearchResult result = technique.call();
+            assertTrue( technique.toString(), System.nanoTime() - start < 5_000_000_000L );
+            assertFalse( technique.toString(), result.isSolutionFound() );
+
+            IState best = result.getState();
+            IState replayed = new LandMap( map );
+            for( int move : result.getMoves() )
+                replayed.apply( move );
+            assertEquals( technique.toString(), best, replayed );
+            assertEquals( technique.toString(), best.getObjectiveValue(), (int) improvements.get( improvements.size() - 1 ) );
+            for( int i = 1; i < improvements.size(); i++ )
+                assertTrue( improvements.get( i ) < improvements.get( i - 1 ) );
+        }
+    }
+
+    /**
+     * With an admissible heuristic A* and IDA* must find solutions as shallow as the ones found by BFS,
+     * and so must IDDFS. IDA* and IDDFS only keep the current path, so they are not run on
+     * objectives that cannot be reached.
+     */
+    public void testInformedTechniquesAreDepthOptimal()
+    {
+        for( int objective = 8; objective >= 4; objective-- )
+        {
+            SearchResult bfs = new BFS( firstInstance(), objective ).call();
+            SearchResult aStar = new AStar( firstInstance(), objective ).call();
+            assertEquals( bfs.isSolutionFound(), aStar.isSolutionFound() );
+            if( bfs.isSolutionFound() )
+            {
+                SearchResult idaStar = new IDAStar( firstInstance(), objective ).call();
+                SearchResult iddfs = new IterativeDDFS( firstInstance(), objective ).call();
+                assertTrue( idaStar.isSolutionFound() );
+                assertTrue( iddfs.isSolutionFound() );
+                assertEquals( bfs.getState().getDepth(), aStar.getState().getDepth() );
+                assertEquals( bfs.getState().getDepth(), idaStar.getState().getDepth() );
+                assertEquals( bfs.getState().getDepth(), iddfs.getState().getDepth() );
+            }
+        }
+    }
+
+    public void testTechniquesReachObjective()
+    {
+        AbstractSearchTechnique[] techniques = {
+            new BFS( secondInstance(), 4 ),
+            new ParallelBFS( secondInstance(), 4 ),
+            new DFS( secondInstance(), 4 ),
+            new IterativeDDFS( secondInstance(), 4 ),
+            new IterativeDDFS( secondInstance(), 4, 1 << 10 ),
+            new AStar( secondInstance(), 4 ),
+            new IDAStar( secondInstance(), 4 ),
+            new BeamSearch( secondInstance(), 4, 2 ),
+            new BranchAndBound( secondInstance(), 4 )
+        };
+        for( AbstractSearchTechnique technique : techniques )
+        {
+            SearchResult result = technique.call();
+            assertTrue( technique.toString(), result.isSolutionFound() );
+            assertTrue( technique.toString(), result.getState().getObjectiveValue() <= 4 );
+        }
+    }
+
+    /**
+     * Replaying the reported moves on the initial state must lead to the reported solution,
+     * one move per level of depth.
+     */
+    public void testReportedMovesReachSolution()
+    {
+        AbstractSearchTechnique[] techniques = {
+            new BFS( firstInstance(), 6 ),
+            new ParallelBFS( firstInstance(), 6 ),
+            new DFS( firstInstance(), 6 ),
+            new IterativeDDFS( firstInstance(), 6 ),
+            new AStar( firstInstance(), 6 ),
+            new IDAStar( firstInstance(), 6 ),
+            new BeamSearch( firstInstance(), 6, 2 ),
+            new BranchAndBound( firstInstance(), 6 )
+        };
+        for( AbstractSearchTechnique technique : techniques )
+        {
+            SearchResult result = technique.call();
+            assertTrue( technique.toString(), result.isSolutionFound() );
+
+            IState replayed = firstInstance();
+            for( int move : result.getMoves() )
+                replayed.apply( move );
+            assertEquals( technique.toString(), result.getState().getDepth(), result.getMoves().length );
+            assertEquals( technique.toString(), result.getState(), replayed );
+        }
+    }
+
+    /**
+     * With an objective below anything reachable the techniques must exhaust the space and report failure.
+     * Below the lower bound derived from the colour counts, every technique must fail at once,
+     * even IDA* and IDDFS which would otherwise deepen forever.
+     */
+    public void testUnreachableObjective()
+    {
+        assertEquals( 6, firstInstance().getReachableLowerBound() );
+        AbstractSearchTechnique[] techniques = {
+            new BFS( firstInstance(), 5 ),
+            new DFS( firstInstance(), 5 ),
+            new IterativeDDFS( firstInstance(), 5 ),
+            new IDAStar( firstInstance(), 5 ),
+            new BeamSearch( firstInstance(), 5, 2 )
+        };
+        for( AbstractSearchTechnique technique : techniques )
+        {
+            SearchResult result = technique.call();
+            assertFalse( technique.toString(), result.isSolutionFound() );
+            assertEquals( technique.toString(), 0, result.getGeneratedStates() );
+        }
+
+        assertFalse( new BFS( secondInstance(), 2 ).call().isSolutionFound() );
+        assertFalse( new ParallelBFS( secondInstance(), 2 ).call().isSolutionFound() );
+        assertFalse( new DFS( secondInstance(), 2 ).call().isSolutionFound() );
+        assertFalse( new IterativeDDFS( secondInstance(), 2, 1 << 16 ).call().isSolutionFound() );
+    }
+}
@@ -0,0 +1,137 @@
+package com.jjginga.service;
+
+import com.jjginga.result.SearchResult;
+import com.jjginga.searchtechnique.AbstractSearchTechnique;
+import com.jjginga.searchtechnique.BFS;
+import com.jjginga.searchtechnique.BeamSearch;
+import com.jjginga.searchtechnique.DFS;
+import com.jjginga.state.LandMap;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the search service.
+ */
+public class SearchServiceTest
+    extends TestCase
+{
+    private static final int[][] LARGE_MAP = {{1,1,2,8,8,1,4,3,1,4},{2,2,1,8,3,8,4,3,2,1},{1,1,8,8,3,1,6,2,1,4},{2,1,1,3,1,2,1,1,4,4},
+                                               {1,7,7,3,1,1,5,6,4,4},{2,2,1,3,1,2,2,1,6,6},{1,7,2,7,5,5,5,5,1,6},{2,7,7,7,1,5,5,1,6,6}};
+    //an objective out of reach, but not ruled out before searching
+    private static final int LARGE_MAP_BOUND = new LandMap( LARGE_MAP ).getReachableLowerBound();
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public SearchServiceTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( SearchServiceTest.class );
+    }
+
+    /**
+     * The time limit of a request must run from its submission: a request whose time ran out
+     * while queued behind a longer search must fail without searching.
+     */
+    public void testTimeLimitIncludesQueueing() throws Exception
+    {
+        try( SearchService service = new SearchService( 1 ) )
+        {
+            CompletableFuture<SearchResult> first = service.submit( new DFS( new LandMap( LARGE_MAP ), LARGE_MAP_BOUND ), 300 );
+            CompletableFuture<SearchResult> queued = service.submit( new DFS( new LandMap( LARGE_MAP ), LARGE_MAP_BOUND ), 100 );
+
+            SearchResult expired = queued.get( 5, TimeUnit.SECONDS );
+            assertTrue( first.isDone() );
+            assertFalse( expired.isSolutionFound() );
+            assertNull( expired.getState() );
+            assertEquals( 0, expired.getGeneratedStates() );
+        }
+    }
+
+    /**
+     * Thousands of pending requests must all be answered, without a thread per request.
+     */
+    public void testManyConcurrentRequests() throws Exception
+    {
+        try( SearchService service = new SearchService( 4 ) )
+        {
+            int threadsBefore = Thread.activeCount();
+            List<CompletableFuture<SearchResult>> results = new ArrayList<>();
+            for( int i = 0; i < 5000; i++ )
+                results.add( service.submit( new BFS( new LandMap( new int[][]{{1,2,3},{1,2,2},{3,3,1}} ), 6 ) ) );
+            assertTrue( Thread.activeCount() <= threadsBefore + 4 );
+
+            CompletableFuture.allOf( results.toArray( new CompletableFuture[0] ) ).get( 60, TimeUnit.SECONDS );
+            for( CompletableFuture<SearchResult> result : results )
+                assertTrue( result.get().isSolutionFound() );
+        }
+    }
+
+    /**
+     * Cancelling a request must stop its search, which must free the pool for the next one.
+     */
+    public void testCancellation() throws Exception
+    {
+        try( SearchService service = new SearchService( 1 ) )
+        {
+            CompletableFuture<SearchResult> running = service.submit( new BFS( new LandMap( LARGE_MAP ), LARGE_MAP_BOUND ), 0 );
+            CompletableFuture<SearchResult> queued = service.submit( new BFS( new LandMap( LARGE_MAP ), LARGE_MAP_BOUND ), 0 );
+            Thread.sleep( 100 );
+            queued.cancel( true );
+            running.cancel( true );
+            try
+            {
+                running.get();
+                fail( "The search was not cancelled" );
+            }
+            catch( CancellationException expected )
+            {
+            }
+
+            SearchResult next = service.submit( new BFS( new LandMap( new int[][]{{1,2,2,2},{1,2,1,1}} ), 4 ) ).get( 10, TimeUnit.SECONDS );
+            assertTrue( next.isSolutionFound() );
+        }
+    }
+
+    /**
+     * A race must be won by a solution, and a race without one must report the closest result
+     * once the time limit stops every technique.
+     */
+    public void testRace() throws Exception
+    {
+        try( SearchService service = new SearchService( 3 ) )
+        {
+            List<AbstractSearchTechnique> techniques = Arrays.asList(
+                new BFS( new LandMap( new int[][]{{1,2,3},{1,2,2},{3,3,1}} ), 6 ),
+                new DFS( new LandMap( new int[][]{{1,2,3},{1,2,2},{3,3,1}} ), 6 ),
+                new BeamSearch( new LandMap( new int[][]{{1,2,3},{1,2,2},{3,3,1}} ), 6, 2 ) );
+            SearchResult won = service.race( techniques, 0 ).get( 10, TimeUnit.SECONDS );
+            assertTrue( won.isSolutionFound() );
+            assertNotNull( won.getTechnique() );
+
+            List<AbstractSearchTechnique> hopeless = Arrays.asList(
+                new BFS( new LandMap( LARGE_MAP ), LARGE_MAP_BOUND ),
+                new DFS( new LandMap( LARGE_MAP ), LARGE_MAP_BOUND ) );
+            SearchResult closest = service.race( hopeless, 200 ).get( 10, TimeUnit.SECONDS );
+            assertFalse( closest.isSolutionFound() );
+            assertTrue( closest.getState().getObjectiveValue() < new LandMap( LARGE_MAP ).getObjectiveValue() );
+        }
+    }
+}
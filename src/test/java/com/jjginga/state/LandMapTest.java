@@ -0,0 +1,230 @@
+package com.jjginga.state;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+/**
+ * Unit tests for LandMap.
+ */
+public class LandMapTest
+    extends TestCase
+{
+    private static final int[][][] MAPS = {
+        {{1,2,3},{1,2,2},{3,3,1}},
+        {{1,2,2,2},{1,2,1,1}},
+        {{1,2,2,2},{1,3,3,3},{1,2,1,1},{1,1,3,2}},
+        {{1,1,2,1,1},{2,2,1,2,1},{1,1,2,1,2},{2,1,1,2,1}},
+        {{1,2,2,2,2,1,2,2,2,2},{1,3,3,3,4,1,3,3,3,4},{1,2,1,4,3,1,2,1,4,3},{1,4,4,4,3,1,4,4,4,3}},
+        {{1,1,2,8,8,1,4,3,1,4},{2,2,1,8,3,8,4,3,2,1},{1,1,8,8,3,1,6,2,1,4},{2,1,1,3,1,2,1,1,4,4},{1,7,7,3,1,1,5,6,4,4},{2,2,1,3,1,2,2,1,6,6},{1,7,2,7,5,5,5,5,1,6},{2,7,7,7,1,5,5,1,6,6}}
+    };
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public LandMapTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( LandMapTest.class );
+    }
+
+    /**
+     * The README example has 4 vertical and 4 horizontal borders.
+     */
+    public void testInitialBorders()
+    {
+        assertEquals( 8, new LandMap( new int[][]{{1,2,3},{1,2,2},{3,3,1}} ).getObjectiveValue() );
+    }
+
+    /**
+     * Borders counted word by word must match a cell by cell count on maps of every shape and
+     * number of colours, including single rows and columns and cells of 1 to 32 bits.
+     */
+    public void testBorderCountMatchesScalarCount()
+    {
+        Random random = new Random( 11 );
+        int[][] shapes = {{1,1},{1,9},{9,1},{2,2},{3,5},{7,9},{16,16},{13,37},{50,50}};
+        int[] colors = {1, 2, 3, 4, 5, 16, 17, 300, 70000};
+        for( int[] shape : shapes )
+            for( int count : colors )
+            {
+                int[][] map = new int[shape[0]][shape[1]];
+                for( int[] row : map )
+                    for( int col = 0; col < row.length; col++ )
+                        row[col] = random.nextInt( count );
+
+                int expected = 0;
+                for( int row = 0; row < map.length; row++ )
+                    for( int col = 0; col < map[row].length; col++ )
+                    {
+                        if( col + 1 < map[row].length && map[row][col] != map[row][col + 1] )
+                            expected++;
+                        if( row + 1 < map.length && map[row][col] != map[row + 1][col] )
+                            expected++;
+                    }
+                assertEquals( shape[0] + "x" + shape[1] + "-" + count, expected, new LandMap( map ).getObjectiveValue() );
+            }
+    }
+
+    /**
+     * The lower bound on the reachable borders must not exceed the borders of any state reached,
+     * and must be exact for maps that can be sorted into compact blocks.
+     */
+    public void testReachableLowerBound()
+    {
+        for( int[][] map : MAPS )
+        {
+            LandMap state = new LandMap( map );
+            int bound = state.getReachableLowerBound();
+            assertTrue( bound <= state.getObjectiveValue() );
+            for( int step = 0; step < 20; step++ )
+            {
+                List<IState> successors = state.generateSuccessors();
+                if( successors.isEmpty() )
+                    break;
+                state = (LandMap) successors.get( successors.size() - 1 );
+                assertEquals( bound, state.getReachableLowerBound() );
+                assertTrue( bound <= state.getObjectiveValue() );
+            }
+        }
+
+        assertEquals( 0, new LandMap( new int[][]{{5,5},{5,5}} ).getReachableLowerBound() );
+        //two colours of 8 cells in a 4x4 map are best split in halves, along a border of 4 edges
+        assertEquals( 4, new LandMap( new int[][]{{1,2,1,2},{2,1,2,1},{1,2,1,2},{2,1,2,1}} ).getReachableLowerBound() );
+    }
+
+    /**
+     * The border count derived incrementally for each successor must match a full recount,
+     * and no successor may have more borders than its parent.
+     */
+    public void testSuccessorBordersMatchFullCount()
+    {
+        for( int[][] map : MAPS )
+        {
+            LandMap state = new LandMap( map );
+            for( int step = 0; step < 3; step++ )
+            {
+                List<IState> successors = state.generateSuccessors();
+                for( IState successor : successors )
+                {
+                    int recounted = new LandMap( ((LandMap) successor).cloneMap() ).getObjectiveValue();
+                    assertEquals( recounted, successor.getObjectiveValue() );
+                    assertTrue( successor.getObjectiveValue() <= state.getObjectiveValue() );
+                    assertEquals( state.getDepth() + 1, successor.getDepth() );
+                }
+                if( successors.isEmpty() )
+                    break;
+                state = (LandMap) successors.get( successors.size() - 1 );
+            }
+        }
+    }
+
+    /**
+     * Packing must preserve the owners of every cell, whatever the number of colours.
+     */
+    public void testPackingRoundTrip()
+    {
+        int[][] manyOwners = new int[5][7];
+        for( int i = 0; i < 35; i++ )
+            manyOwners[i / 7][i % 7] = 3 * i + 10;
+
+        for( int[][] map : MAPS )
+            assertTrue( Arrays.deepEquals( map, new LandMap( map ).cloneMap() ) );
+        assertTrue( Arrays.deepEquals( manyOwners, new LandMap( manyOwners ).cloneMap() ) );
+    }
+
+    /**
+     * States reached by different paths with the same configuration must be equal and share the
+     * hash code and fingerprint, whether the fingerprint was derived incrementally or not.
+     */
+    public void testEqualsAndHashCode()
+    {
+        LandMap root = new LandMap( new int[][]{{1,2,3},{1,2,2},{3,3,1}} );
+        for( IState successor : root.generateSuccessors() )
+        {
+            LandMap copy = new LandMap( ((LandMap) successor).cloneMap() );
+            assertEquals( copy, successor );
+            assertEquals( copy.hashCode(), successor.hashCode() );
+            assertEquals( copy.getFingerprint(), successor.getFingerprint() );
+            assertTrue( root.getFingerprint() != successor.getFingerprint() );
+            assertFalse( root.equals( successor ) );
+        }
+    }
+
+    /**
+     * Applying a move in place must give the same state as the eagerly generated successor,
+     * and undoing it must restore the original state exactly.
+     */
+    public void testApplyAndUndo()
+    {
+        for( int[][] map : MAPS )
+        {
+            LandMap state = new LandMap( map );
+            IState original = state.copy();
+            List<IState> successors = state.generateSuccessors();
+
+            int index = 0;
+            PrimitiveIterator.OfInt moves = state.moves();
+            while( moves.hasNext() )
+            {
+                int move = moves.nextInt();
+                state.apply( move );
+                IState expected = successors.get( index++ );
+                assertEquals( expected, state );
+                assertEquals( expected.getObjectiveValue(), state.getObjectiveValue() );
+                assertEquals( expected.getFingerprint(), state.getFingerprint() );
+                assertEquals( expected.getDepth(), state.getDepth() );
+                assertEquals( expected, original.successor( move ) );
+                state.undo( move );
+
+                assertEquals( original, state );
+                assertEquals( original.getObjectiveValue(), state.getObjectiveValue() );
+                assertEquals( original.getFingerprint(), state.getFingerprint() );
+                assertEquals( original.getDepth(), state.getDepth() );
+            }
+            assertEquals( successors.size(), index );
+        }
+    }
+
+    /**
+     * Mirrored, rotated and relabelled copies of a map must share its canonical fingerprint,
+     * while maps with different numbers of borders must not.
+     */
+    public void testCanonicalFingerprint()
+    {
+        int[][] map = {{1,2,3},{1,2,2},{3,3,1}};
+        long canonical = new LandMap( map ).getCanonicalFingerprint();
+
+        int[][] mirrored = new int[3][3];
+        int[][] rotated = new int[3][3];
+        int[][] relabelled = new int[3][3];
+        for( int row = 0; row < 3; row++ )
+            for( int col = 0; col < 3; col++ )
+            {
+                mirrored[row][col] = map[row][2 - col];
+                rotated[col][2 - row] = map[row][col];
+                relabelled[row][col] = 10 - map[row][col];
+            }
+        assertEquals( canonical, new LandMap( mirrored ).getCanonicalFingerprint() );
+        assertEquals( canonical, new LandMap( rotated ).getCanonicalFingerprint() );
+        assertEquals( canonical, new LandMap( relabelled ).getCanonicalFingerprint() );
+
+        for( IState successor : new LandMap( map ).generateSuccessors() )
+            if( successor.getObjectiveValue() != 8 )
+                assertTrue( canonical != successor.getCanonicalFingerprint() );
+    }
+}
@@ -0,0 +1,130 @@
+package com.jjginga.visited;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Unit tests for the open-addressing fingerprint sets.
+ */
+public class FingerprintSetTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public FingerprintSetTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( FingerprintSetTest.class );
+    }
+
+    public void testHeapSet()
+    {
+        checkAgainstHashSet( new FingerprintSet() );
+    }
+
+    public void testOffHeapSet()
+    {
+        checkAgainstHashSet( new OffHeapFingerprintSet() );
+    }
+
+    /**
+     * An off-heap set needing a buffer of 2 GB or more, beyond what a direct buffer holds, must
+     * report that it is full.
+     */
+    public void testOffHeapSetLimit()
+    {
+        try
+        {
+            new OffHeapFingerprintSet( (int) ((1 << 28) * 0.6) );
+            fail( "2^28 slots do not fit in a direct buffer" );
+        }
+        catch( IllegalStateException e )
+        {
+            assertEquals( "Visited set is full", e.getMessage() );
+        }
+    }
+
+    /**
+     * Removing entries must keep every other entry reachable through its probe sequence.
+     */
+    public void testRemove()
+    {
+        FingerprintSet set = new FingerprintSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random( 7 );
+        for( int i = 0; i < 5000; i++ )
+        {
+            //a narrow range of values forces long probe sequences and collisions
+            long fingerprint = random.nextInt( 2000 );
+            if( random.nextBoolean() )
+                assertEquals( expected.add( fingerprint ), set.add( fingerprint ) );
+            else
+                assertEquals( expected.remove( fingerprint ), set.remove( fingerprint ) );
+        }
+        assertEquals( expected.size(), set.size() );
+        for( long fingerprint = 0; fingerprint < 2000; fingerprint++ )
+            assertEquals( expected.contains( fingerprint ), set.contains( fingerprint ) );
+    }
+
+    /**
+     * The bitstate set must never forget a fingerprint, and with a generous budget must rarely
+     * report unseen ones, in line with the estimated false positive rate.
+     */
+    public void testBitStateSet()
+    {
+        BitStateSet set = new BitStateSet( 1 << 16 );
+        Random random = new Random( 3 );
+        long[] added = new long[20000];
+        for( int i = 0; i < added.length; i++ )
+        {
+            added[i] = random.nextLong();
+            set.add( added[i] );
+        }
+        for( long fingerprint : added )
+            assertTrue( set.contains( fingerprint ) );
+        assertFalse( set.add( added[0] ) );
+
+        int falsePositives = 0;
+        for( int i = 0; i < 100000; i++ )
+            if( set.contains( random.nextLong() ) )
+                falsePositives++;
+        double rate = set.falsePositiveRate();
+        assertTrue( rate > 0 && rate < 0.01 );
+        assertTrue( falsePositives < 100000 * rate * 2 + 10 );
+        assertEquals( 0.0, new FingerprintSet().falsePositiveRate() );
+    }
+
+    /**
+     * Adds enough random fingerprints to force several resizes, including the fingerprint 0,
+     * and checks the answers against a java.util.HashSet.
+     */
+    private void checkAgainstHashSet( IVisitedSet set )
+    {
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random( 42 );
+        for( int i = 0; i < 20000; i++ )
+        {
+            long fingerprint = i % 10 == 0 ? random.nextInt( 100 ) : random.nextLong();
+            assertEquals( expected.add( fingerprint ), set.add( fingerprint ) );
+        }
+        assertEquals( expected.size(), set.size() );
+        for( long fingerprint : expected )
+            assertTrue( set.contains( fingerprint ) );
+        assertFalse( set.contains( 123456789L ) );
+    }
+}
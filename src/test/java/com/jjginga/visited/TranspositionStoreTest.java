@@ -0,0 +1,105 @@
+package com.jjginga.visited;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Unit tests for the persistent transposition store.
+ */
+public class TranspositionStoreTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public TranspositionStoreTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( TranspositionStoreTest.class );
+    }
+
+    /**
+     * Entries must survive closing and reopening the file, keeping the best facts recorded.
+     */
+    public void testPersistence() throws Exception
+    {
+        Path file = Files.createTempFile( "store", ".tts" );
+        try
+        {
+            try( TranspositionStore store = TranspositionStore.open( file, 1024 ) )
+            {
+                store.recordSolution( 42, 5, 3, 7, TranspositionStore.UNKNOWN );
+                store.recordSolution( 42, 5, 4, 9, TranspositionStore.UNKNOWN );
+                store.recordLowerBound( 42, 2 );
+                store.recordLowerBound( 42, 1 );
+                store.recordLowerBound( 43, 6 );
+            }
+            long size = Files.size( file );
+
+            try( TranspositionStore store = TranspositionStore.open( file, 1024 ) )
+            {
+                TranspositionStore.Entry entry = store.lookup( 42 );
+                assertEquals( 5, entry.getBorders() );
+                assertEquals( 3, entry.getDistance() );
+                assertEquals( 7, entry.getNextMove() );
+                assertEquals( 2, entry.getLowerBound() );
+                assertFalse( store.lookup( 43 ).hasSolution() );
+                assertEquals( 6, store.lookup( 43 ).getLowerBound() );
+                assertNull( store.lookup( 44 ) );
+            }
+            assertEquals( size, Files.size( file ) );
+        }
+        finally
+        {
+            Files.delete( file );
+        }
+    }
+
+    /**
+     * Recording far more states than the capacity must keep the file size fixed, evicting the
+     * entries of previous sessions first.
+     */
+    public void testEviction() throws Exception
+    {
+        Path file = Files.createTempFile( "store", ".tts" );
+        try
+        {
+            try( TranspositionStore store = TranspositionStore.open( file, 64 ) )
+            {
+                for( long key = 1; key <= 32; key++ )
+                    store.recordLowerBound( key, 1 );
+            }
+            long size = Files.size( file );
+
+            try( TranspositionStore store = TranspositionStore.open( file, 64 ) )
+            {
+                for( long key = 1000; key < 1064; key++ )
+                    store.recordLowerBound( key, 2 );
+                int kept = 0;
+                for( long key = 1000; key < 1064; key++ )
+                    if( store.lookup( key ) != null )
+                        kept++;
+                //entries of this session only evict each other when a set overflows
+                assertTrue( kept > 32 );
+            }
+            assertEquals( size, Files.size( file ) );
+        }
+        finally
+        {
+            Files.delete( file );
+        }
+    }
+}